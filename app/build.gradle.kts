@@ -13,6 +13,8 @@ android {
         versionCode = 1
         versionName = "1.0"
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        buildConfigField("String", "VIRUSTOTAL_API_KEY",
+            "\"${providers.gradleProperty("virustotalApiKey").getOrElse("")}\"")
     }
     buildTypes {
         release {
@@ -29,6 +31,7 @@ android {
     }
     buildFeatures {
         viewBinding = true
+        buildConfig = true
     }
 }
 
@@ -43,13 +46,12 @@ dependencies {
     implementation ("com.google.firebase:firebase-auth:22.1.1")
     implementation("com.google.firebase:firebase-analytics")
     implementation(libs.play.services.auth)
-    implementation("com.github.ipfs:java-ipfs-http-client:v1.4.4")
+    implementation(project(":core"))
     implementation(libs.okhttp)
     implementation(libs.gson)
     testImplementation(libs.junit)
     androidTestImplementation(libs.junit.v115)
     androidTestImplementation(libs.espresso.core.v351)
-    implementation ("com.github.ipfs:java-ipfs-http-client:v1.3.3")
     implementation ("com.squareup.retrofit2:retrofit:2.9.0")
     implementation ("com.squareup.retrofit2:converter-gson:2.9.0")
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.example.zerobyte;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchScanner {
+    public enum State { QUEUED, DOWNLOADING, HASHING, SCANNING, DONE }
+
+    private final ContentResolver contentResolver;
+    private final ScanVerdictCache verdicts;
+    private final IPFSManager ipfsManager;
+    private final File downloadDir;
+    private final TransferScheduler scheduler = IPFSClientRegistry.getInstance().scheduler();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, CompletableFuture<VirusTotalClient.ScanResult>> byCid = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<VirusTotalClient.ScanResult>> byHash = new ConcurrentHashMap<>();
+
+    public BatchScanner(ContentResolver contentResolver, ScanVerdictCache verdicts, IPFSManager ipfsManager,
+                        File quarantineDir) {
+        this.contentResolver = contentResolver;
+        this.verdicts = verdicts;
+        this.ipfsManager = ipfsManager;
+        this.downloadDir = new File(quarantineDir, "batch");
+    }
+
+    public static class Item {
+        public final String cid;
+        volatile Uri uri;
+        volatile String sha256;
+        volatile long scannedSize = TransferScheduler.UNKNOWN_SIZE;
+        volatile long contentSize = TransferScheduler.UNKNOWN_SIZE;
+        volatile State state = State.QUEUED;
+        volatile VirusTotalClient.ScanResult result;
+
+        Item(String cid, Uri uri) {
+            this.cid = cid;
+            this.uri = uri;
+        }
+
+        public Uri uri() {
+            return uri;
+        }
+
+        public String sha256() {
+            return sha256;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public VirusTotalClient.ScanResult result() {
+            return result;
+        }
+    }
+
+    public interface BatchListener {
+        void onItemUpdated(Item item);
+        void onProgress(int completed, int total);
+        void onBatchComplete(List<Item> items);
+    }
+
+    public static Item file(Uri uri, String cid) {
+        return new Item(cid, uri);
+    }
+
+    public static Item cid(String cid) {
+        return new Item(cid, null);
+    }
+
+    public CompletableFuture<List<Item>> scan(List<Item> items, BatchListener listener) {
+        AtomicInteger completed = new AtomicInteger();
+        List<CompletableFuture<Void>> scans = new ArrayList<>();
+        for (Item item : items) {
+            scans.add(scanItem(item, listener).handle((result, error) -> {
+                item.result = error != null
+                        ? new VirusTotalClient.ScanResult("Scan failed: " + rootMessage(error), true) : result;
+                update(item, State.DONE, listener);
+                int done = completed.incrementAndGet();
+                mainHandler.post(() -> listener.onProgress(done, items.size()));
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(scans.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<Item> finished = Collections.unmodifiableList(new ArrayList<>(items));
+            mainHandler.post(() -> listener.onBatchComplete(finished));
+            return finished;
+        });
+    }
+
+    private CompletableFuture<VirusTotalClient.ScanResult> scanItem(Item item, BatchListener listener) {
+        if (item.cid == null) {
+            return scanContent(item, DocumentSources.source(contentResolver, item.uri), listener);
+        }
+        CompletableFuture<VirusTotalClient.ScanResult> scan = new CompletableFuture<>();
+        CompletableFuture<VirusTotalClient.ScanResult> existing = byCid.putIfAbsent(item.cid, scan);
+        if (existing != null) {
+            return existing;
+        }
+        scan.whenComplete((result, error) -> byCid.remove(item.cid, scan));
+        CompletableFuture<VirusTotalClient.ScanResult> known = new CompletableFuture<>();
+        scheduler.control(() -> known.complete(verdicts.forCid(item.cid)));
+        known.thenCompose(verdict -> verdict != null ? CompletableFuture.completedFuture(verdict)
+                        : scanFetched(item, listener))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        scan.completeExceptionally(error);
+                    } else {
+                        scan.complete(result);
+                    }
+                });
+        return scan;
+    }
+
+    private CompletableFuture<VirusTotalClient.ScanResult> scanFetched(Item item, BatchListener listener) {
+        if (item.uri != null) {
+            return scanContent(item, DocumentSources.source(contentResolver, item.uri), listener);
+        }
+        return download(item, listener).thenCompose(file -> scanContent(item, TransferSource.forFile(file), listener)
+                .whenComplete((result, error) -> file.delete()));
+    }
+
+    private CompletableFuture<VirusTotalClient.ScanResult> scanContent(Item item, TransferSource source,
+                                                                   BatchListener listener) {
+        update(item, State.HASHING, listener);
+        CompletableFuture<String> hashed = new CompletableFuture<>();
+        scheduler.bulk(Collections.emptyList(), source.size(), () -> {
+            try {
+                item.scannedSize = source.size();
+                if (item.uri != null) {
+                    item.contentSize = item.scannedSize;
+                }
+                hashed.complete(VirusTotalClient.sha256(source));
+            } catch (IOException | RuntimeException e) {
+                hashed.completeExceptionally(e);
+            }
+        });
+        return hashed.thenCompose(sha256 -> {
+            item.sha256 = sha256;
+            CompletableFuture<VirusTotalClient.ScanResult> scan = new CompletableFuture<>();
+            CompletableFuture<VirusTotalClient.ScanResult> existing = byHash.putIfAbsent(sha256, scan);
+            if (existing != null) {
+                return existing.thenApply(result -> {
+                    verdicts.put(item.cid, sha256, item.scannedSize, item.contentSize, result);
+                    return result;
+                });
+            }
+            scan.whenComplete((result, error) -> byHash.remove(sha256, scan));
+            update(item, State.SCANNING, listener);
+            VirusTotalClient.scanAsync(source, item.cid, item.contentSize, sha256, verdicts, null)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            scan.completeExceptionally(error);
+                        } else {
+                            scan.complete(result);
+                        }
+                    });
+            return scan;
+        });
+    }
+
+    private CompletableFuture<File> download(Item item, BatchListener listener) {
+        CompletableFuture<File> downloaded = new CompletableFuture<>();
+        if (ipfsManager == null) {
+            downloaded.completeExceptionally(new IOException("No IPFS node to fetch " + item.cid));
+            return downloaded;
+        }
+        File target;
+        try {
+            if (!downloadDir.isDirectory() && !downloadDir.mkdirs()) {
+                throw new IOException("Cannot create " + downloadDir);
+            }
+            target = File.createTempFile(item.cid + ".", ".part", downloadDir);
+        } catch (IOException e) {
+            downloaded.completeExceptionally(e);
+            return downloaded;
+        }
+        update(item, State.DOWNLOADING, listener);
+        TransferHandle handle = ipfsManager.downloadToFile(item.cid, target, bytes -> { },
+                new IPFSManager.IPFSDownloadListener() {
+                    @Override
+                    public void onDownloadSuccess(byte[] fileData) {
+                        downloaded.complete(target);
+                    }
+
+                    @Override
+                    public void onDownloadFailed(String error) {
+                        target.delete();
+                        downloaded.completeExceptionally(new IOException(error));
+                    }
+                });
+        return downloaded.thenApply(file -> {
+            item.contentSize = handle.progress().totalBytes();
+            return file;
+        });
+    }
+
+    private void update(Item item, State state, BatchListener listener) {
+        item.state = state;
+        mainHandler.post(() -> listener.onItemUpdated(item));
+    }
+
+    private static String rootMessage(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error.getMessage();
+    }
+}
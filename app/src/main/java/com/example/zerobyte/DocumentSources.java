@@ -0,0 +1,169 @@
+package com.example.zerobyte;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DocumentSources {
+    private DocumentSources() {
+    }
+
+    public static TransferSource source(ContentResolver contentResolver, Uri uri) {
+        return new TransferSource() {
+            @Override
+            public String name() {
+                try (Cursor cursor = contentResolver.query(uri,
+                        new String[] {OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                        return cursor.getString(0);
+                    }
+                } catch (RuntimeException ignored) {
+                }
+                String name = uri.getLastPathSegment();
+                return name != null ? name : "file";
+            }
+
+            @Override
+            public String key() {
+                return uri.toString();
+            }
+
+            @Override
+            public long size() {
+                try (ParcelFileDescriptor descriptor = contentResolver.openFileDescriptor(uri, "r")) {
+                    return descriptor != null ? descriptor.getStatSize() : TransferScheduler.UNKNOWN_SIZE;
+                } catch (IOException | RuntimeException e) {
+                    return TransferScheduler.UNKNOWN_SIZE;
+                }
+            }
+
+            @Override
+            public long lastModified() {
+                try (Cursor cursor = contentResolver.query(uri,
+                        new String[] {DocumentsContract.Document.COLUMN_LAST_MODIFIED}, null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                        return cursor.getLong(0);
+                    }
+                } catch (RuntimeException e) {
+                    return 0;
+                }
+                return 0;
+            }
+
+            @Override
+            public InputStream open() throws IOException {
+                return contentResolver.openInputStream(uri);
+            }
+        };
+    }
+
+    public static DownloadTarget target(ContentResolver contentResolver, Uri uri) {
+        return new DownloadTarget() {
+            @Override
+            public String key() {
+                return uri.toString();
+            }
+
+            @Override
+            public FileChannel openSeekable(boolean resume) throws IOException {
+                ParcelFileDescriptor descriptor = contentResolver.openFileDescriptor(uri, resume ? "rw" : "rwt");
+                if (descriptor == null) {
+                    throw new IOException("Cannot create output file");
+                }
+                return new ParcelFileDescriptor.AutoCloseOutputStream(descriptor).getChannel();
+            }
+
+            @Override
+            public WritableByteChannel openStream() throws IOException {
+                OutputStream outputStream = contentResolver.openOutputStream(uri, "wt");
+                if (outputStream == null) {
+                    throw new IOException("Cannot create output file");
+                }
+                return outputStream instanceof FileOutputStream
+                        ? ((FileOutputStream) outputStream).getChannel() : Channels.newChannel(outputStream);
+            }
+
+            @Override
+            public FileChannel openReadable() throws IOException {
+                ParcelFileDescriptor descriptor = contentResolver.openFileDescriptor(uri, "r");
+                if (descriptor == null) {
+                    return null;
+                }
+                return new ParcelFileDescriptor.AutoCloseInputStream(descriptor).getChannel();
+            }
+        };
+    }
+
+    public static List<CollectionUpload.Entry> fromDocuments(ContentResolver contentResolver, List<Uri> uris) {
+        List<CollectionUpload.Entry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Uri uri : uris) {
+            String name = null;
+            long size = -1;
+            try (Cursor cursor = contentResolver.query(uri, null, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                    int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                    if (nameIndex >= 0) {
+                        name = cursor.getString(nameIndex);
+                    }
+                    if (sizeIndex >= 0 && !cursor.isNull(sizeIndex)) {
+                        size = cursor.getLong(sizeIndex);
+                    }
+                }
+            }
+            entries.add(new CollectionUpload.Entry(CollectionUpload.uniqueName(names,
+                    name != null ? name : uri.getLastPathSegment()), source(contentResolver, uri), size));
+        }
+        return entries;
+    }
+
+    public static List<CollectionUpload.Entry> fromDocumentTree(ContentResolver contentResolver, Uri treeUri) {
+        List<CollectionUpload.Entry> entries = new ArrayList<>();
+        Deque<String[]> pending = new ArrayDeque<>();
+        pending.add(new String[] {DocumentsContract.getTreeDocumentId(treeUri), ""});
+        String[] projection = {
+                DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+                DocumentsContract.Document.COLUMN_MIME_TYPE,
+                DocumentsContract.Document.COLUMN_SIZE
+        };
+        while (!pending.isEmpty()) {
+            String[] directory = pending.poll();
+            Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, directory[0]);
+            Set<String> names = new HashSet<>();
+            try (Cursor cursor = contentResolver.query(children, projection, null, null, null)) {
+                while (cursor != null && cursor.moveToNext()) {
+                    String documentId = cursor.getString(0);
+                    String path = directory[1] + CollectionUpload.uniqueName(names, cursor.getString(1));
+                    if (DocumentsContract.Document.MIME_TYPE_DIR.equals(cursor.getString(2))) {
+                        entries.add(new CollectionUpload.Entry(path, null, 0));
+                        pending.add(new String[] {documentId, path + "/"});
+                    } else {
+                        long size = cursor.isNull(3) ? -1 : cursor.getLong(3);
+                        Uri document = DocumentsContract.buildDocumentUriUsingTree(treeUri, documentId);
+                        entries.add(new CollectionUpload.Entry(path, source(contentResolver, document), size));
+                    }
+                }
+            }
+        }
+        entries.sort((a, b) -> CollectionUpload.comparePaths(a.path, b.path));
+        return entries;
+    }
+}
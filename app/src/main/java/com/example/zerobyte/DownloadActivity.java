@@ -3,6 +3,8 @@ package com.example.zerobyte;
 import android.app.AlertDialog;
 import android.app.ProgressDialog;
 import android.content.ContentResolver;
+import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
@@ -11,37 +13,48 @@ import android.widget.EditText;
 import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 public class DownloadActivity extends AppCompatActivity {
     private static final int PICK_SAVE_LOCATION_REQUEST = 1001;
+    private static ScanVerdictCache scanVerdicts;
 
     private EditText edtFileHash;
-    private Button btnDownload, btnCheckStatus;
+    private Button btnDownload, btnScanHashes, btnCheckStatus;
     private ProgressDialog progressDialog;
     private IPFSManager ipfsManager;
     private Uri saveLocationUri;
     private String currentFileHash;
+    private QuarantineDownload quarantineDownload;
+    private BatchScanner batchScanner;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_download);
+        VirusTotalAPI.setApiKey(BuildConfig.VIRUSTOTAL_API_KEY);
         edtFileHash = findViewById(R.id.edtFileHash);
         btnDownload = findViewById(R.id.btnDownloadFile);
+        btnScanHashes = findViewById(R.id.btnScanHashes);
         btnCheckStatus = findViewById(R.id.btnCheckIPFSStatus);
         btnDownload.setOnClickListener(v -> handleDownloadClick());
+        btnScanHashes.setOnClickListener(v -> handleScanClick());
         btnCheckStatus.setOnClickListener(v -> checkIPFSStatus());
         initializeIPFS();
     }
 
     private void initializeIPFS() {
-        String ipfsAddress = getIntent().getStringExtra("IPFS_ADDRESS");
-        if (ipfsAddress == null || ipfsAddress.isEmpty()) {
+        String[] ipfsAddresses = getIntent().getStringArrayExtra("IPFS_ADDRESSES");
+        if (ipfsAddresses == null || ipfsAddresses.length == 0) {
             showToast("Invalid IPFS address");
             finish();
             return;
         }
-        ipfsManager = new IPFSManager(this, ipfsAddress, new IPFSManager.IPFSInitListener() {
+        ipfsManager = new IPFSManager(this, Arrays.asList(ipfsAddresses), new IPFSManager.IPFSInitListener() {
             @Override
             public void onIPFSInitialized() {
             }
@@ -51,6 +64,7 @@ public class DownloadActivity extends AppCompatActivity {
                 showToast("Offline: " + error);
             }
         });
+        ipfsManager.setHeartbeatEnabled(true);
     }
 
     private void checkIPFSStatus() {
@@ -74,12 +88,68 @@ public class DownloadActivity extends AppCompatActivity {
             currentFileHash = fileHash;
             requestSaveLocation();
         } else {
-            showToast("Invalid IPFS hash (must start with Qm)");
+            showToast("Invalid IPFS hash (expected a Qm... or b... CID)");
         }
     }
 
+    private void handleScanClick() {
+        List<BatchScanner.Item> items = new ArrayList<>();
+        for (String hash : edtFileHash.getText().toString().trim().split("[\\s,]+")) {
+            if (!isValidFileHash(hash)) {
+                showToast("Invalid IPFS hash: " + hash);
+                return;
+            }
+            items.add(BatchScanner.cid(hash));
+        }
+        if (batchScanner == null) {
+            batchScanner = new BatchScanner(getContentResolver(), scanVerdicts(this), ipfsManager,
+                    new File(getFilesDir(), "quarantine"));
+        }
+        showProgress("Scanning " + items.size() + " file(s)...");
+        batchScanner.scan(items, new BatchScanner.BatchListener() {
+            @Override
+            public void onItemUpdated(BatchScanner.Item item) {
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+                updateProgress("Scanning files...\n" + completed + " of " + total + " done");
+            }
+
+            @Override
+            public void onBatchComplete(List<BatchScanner.Item> items) {
+                dismissProgress();
+                showScanSummary(items);
+            }
+        });
+    }
+
+    private void showScanSummary(List<BatchScanner.Item> items) {
+        StringBuilder message = new StringBuilder();
+        for (BatchScanner.Item item : items) {
+            VirusTotalClient.ScanResult result = item.result();
+            String verdict = result.isError ? result.errorMessage : result.isInfected()
+                    ? String.format(Locale.US, "%d malicious, %d suspicious", result.maliciousCount,
+                    result.suspiciousCount) : "clean";
+            message.append(item.cid).append(": ").append(verdict).append("\n\n");
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Scan Results")
+                .setMessage(message.toString().trim())
+                .setPositiveButton("OK", null)
+                .show();
+    }
+
     private boolean isValidFileHash(String hash) {
-        return hash != null && hash.startsWith("Qm") && hash.length() > 10;
+        if (hash == null) {
+            return false;
+        }
+        try {
+            byte[] multihash = CidCodec.multihashOf(CidCodec.cidBytes(hash));
+            return multihash.length == 34 && multihash[1] == 32;
+        } catch (RuntimeException e) {
+            return false;
+        }
     }
 
     private void requestSaveLocation() {
@@ -96,33 +166,71 @@ public class DownloadActivity extends AppCompatActivity {
         if (requestCode == PICK_SAVE_LOCATION_REQUEST && resultCode == RESULT_OK && data != null) {
             saveLocationUri = data.getData();
             if (saveLocationUri != null) {
-                startVirusScan();
+                startFileDownload();
             }
         }
     }
 
-    private void startVirusScan() {
-        showProgress("Scanning for viruses...");
-        new Thread(() -> {
-            VirusTotalAPI.ScanResult result = VirusTotalAPI.scanFile(saveLocationUri, getContentResolver());
-            runOnUiThread(() -> {
-                dismissProgress();
-                handleScanResult(result);
-            });
-        }).start();
+    private void startFileDownload() {
+        showProgress("Downloading and scanning file...");
+        quarantineDownload = new QuarantineDownload(ipfsManager, getContentResolver(),
+                new File(getFilesDir(), "quarantine"), scanVerdicts(this), currentFileHash, saveLocationUri,
+                new QuarantineDownload.Listener() {
+                    @Override
+                    public void onVerdict(VirusTotalClient.ScanResult result) {
+                        dismissProgress();
+                        handleScanResult(result);
+                    }
+
+                    @Override
+                    public void onDownloadProgress(TransferProgress.Snapshot progress) {
+                        updateProgress("Downloading and scanning file...\n" + progress);
+                    }
+
+                    @Override
+                    public void onScanProgress(TransferProgress.Snapshot progress) {
+                        if (progress.totalBytes > 0 && !progress.finished) {
+                            updateProgress("Uploading file for scan...\n" + progress);
+                        }
+                    }
+
+                    @Override
+                    public void onPublished() {
+                        quarantineDownload = null;
+                        dismissProgress();
+                        showToast("Download completed successfully");
+                    }
+
+                    @Override
+                    public void onFailed(String error) {
+                        dismissProgress();
+                        showErrorDialog("Download Failed", error, () -> startFileDownload(),
+                                () -> quarantineDownload.discard());
+                    }
+                });
+        quarantineDownload.start();
+    }
+
+    private static synchronized ScanVerdictCache scanVerdicts(Context context) {
+        if (scanVerdicts == null) {
+            scanVerdicts = new ScanVerdictCache(new File(context.getFilesDir(), "scan-verdicts.log"),
+                    ScanVerdictCache.DEFAULT_TTL_MILLIS);
+        }
+        return scanVerdicts;
     }
 
-    private void handleScanResult(VirusTotalAPI.ScanResult result) {
+    private void handleScanResult(VirusTotalClient.ScanResult result) {
         if (result.isError) {
-            showErrorDialog("Scan Failed", result.errorMessage, true);
-        } else if (result.isInfected()) {
-            showVirusWarning(result);
+            showErrorDialog("Scan Failed", result.errorMessage, () -> {
+                showProgress("Scanning for viruses...");
+                quarantineDownload.rescan();
+            }, () -> quarantineDownload.discard());
         } else {
-            startFileDownload();
+            showVirusWarning(result);
         }
     }
 
-    private void showVirusWarning(VirusTotalAPI.ScanResult result) {
+    private void showVirusWarning(VirusTotalClient.ScanResult result) {
         String message = String.format(
                 "Security Alert!\n\n" +
                         "• Malicious detections: %d\n" +
@@ -137,43 +245,24 @@ public class DownloadActivity extends AppCompatActivity {
         new AlertDialog.Builder(this)
                 .setTitle("Virus Detected")
                 .setMessage(message)
-                .setPositiveButton("Download", (d, w) -> startFileDownload())
-                .setNegativeButton("Cancel", null)
+                .setPositiveButton("Download", (d, w) -> {
+                    showProgress("Downloading file...");
+                    quarantineDownload.publish();
+                })
+                .setNegativeButton("Cancel", (d, w) -> quarantineDownload.discard())
                 .setIcon(android.R.drawable.ic_dialog_alert)
                 .show();
     }
 
-    private void showErrorDialog(String title, String message, boolean allowRetry) {
+    private void showErrorDialog(String title, String message, Runnable retry, Runnable dismiss) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this)
                 .setTitle(title)
                 .setMessage(message)
                 .setIcon(android.R.drawable.ic_dialog_alert);
-        if (allowRetry) {
-            builder.setPositiveButton("Retry", (d, w) -> startVirusScan());
+        if (retry != null) {
+            builder.setPositiveButton("Retry", (d, w) -> retry.run());
         }
-        builder.setNegativeButton("OK", null).show();
-    }
-
-    private void startFileDownload() {
-        showProgress("Downloading file...");
-        ipfsManager.downloadFileFromIPFS(currentFileHash, saveLocationUri,
-                getContentResolver(), new IPFSManager.IPFSDownloadListener() {
-                    @Override
-                    public void onDownloadSuccess(byte[] fileData) {
-                        runOnUiThread(() -> {
-                            dismissProgress();
-                            showToast("Download completed successfully");
-                        });
-                    }
-
-                    @Override
-                    public void onDownloadFailed(String error) {
-                        runOnUiThread(() -> {
-                            dismissProgress();
-                            showErrorDialog("Download Failed", error, true);
-                        });
-                    }
-                });
+        builder.setNegativeButton("OK", dismiss != null ? (d, w) -> dismiss.run() : null).show();
     }
 
     private void showProgress(String message) {
@@ -181,6 +270,7 @@ public class DownloadActivity extends AppCompatActivity {
             if (progressDialog == null) {
                 progressDialog = new ProgressDialog(this);
                 progressDialog.setCancelable(false);
+                progressDialog.setButton(DialogInterface.BUTTON_NEGATIVE, "Cancel", (d, w) -> cancelDownload());
             }
             progressDialog.setMessage(message);
             if (!progressDialog.isShowing()) {
@@ -189,6 +279,20 @@ public class DownloadActivity extends AppCompatActivity {
         });
     }
 
+    private void updateProgress(String message) {
+        if (progressDialog != null && progressDialog.isShowing()) {
+            progressDialog.setMessage(message);
+        }
+    }
+
+    private void cancelDownload() {
+        if (quarantineDownload != null) {
+            quarantineDownload.discard();
+            quarantineDownload = null;
+            showToast("Download cancelled");
+        }
+    }
+
     private void dismissProgress() {
         runOnUiThread(() -> {
             if (progressDialog != null && progressDialog.isShowing()) {
@@ -197,6 +301,14 @@ public class DownloadActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        if (ipfsManager != null) {
+            ipfsManager.shutdown();
+        }
+        super.onDestroy();
+    }
+
     private void showToast(String message) {
         runOnUiThread(() -> Toast.makeText(this, message, Toast.LENGTH_SHORT).show());
     }
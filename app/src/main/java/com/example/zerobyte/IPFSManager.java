@@ -1,110 +1,168 @@
 package com.example.zerobyte;
 
 import android.content.ContentResolver;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import io.ipfs.api.IPFS;
-import io.ipfs.api.MerkleNode;
-import io.ipfs.api.NamedStreamable;
-import io.ipfs.multihash.Multihash;
-import io.ipfs.multiaddr.MultiAddress;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public class IPFSManager {
-    private IPFS ipfs;
-    private final ExecutorService executorService;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 8_000;
+    private static final long DEFAULT_CACHE_BYTES = 256L * 1024 * 1024;
+    private static ContentCache sharedContentCache;
+    private static UploadIndex sharedUploadIndex;
+
+    private final IPFSTransfers transfers;
     private final Handler mainHandler;
-    private final String ipfsAddress;
 
-    public IPFSManager(Object context, String ipfsAddress, IPFSInitListener listener) {
-        this.ipfsAddress = ipfsAddress;
-        this.executorService = Executors.newFixedThreadPool(3);
+    public IPFSManager(Context context, String ipfsAddress, IPFSInitListener listener) {
+        this(context, Collections.singletonList(ipfsAddress), listener);
+    }
+
+    public IPFSManager(Context context, List<String> ipfsAddresses, IPFSInitListener listener) {
+        this.transfers = new IPFSTransfers(IPFSClientRegistry.getInstance(), ipfsAddresses,
+                new TransferCheckpointStore(new File(context.getFilesDir(), "transfers")),
+                sharedContentCache(context), sharedUploadIndex(context));
         this.mainHandler = new Handler(Looper.getMainLooper());
         initializeIPFS(listener);
     }
 
     private void initializeIPFS(IPFSInitListener listener) {
-        executorService.execute(() -> {
-            try {
-                ipfs = new IPFS(new MultiAddress(ipfsAddress));
-                ipfs.refs.local();
+        transfers.probe(status -> {
+            if (status.online) {
                 mainHandler.post(listener::onIPFSInitialized);
-            } catch (Exception e) {
-                mainHandler.post(() -> listener.onIPFSInitFailed(e.getMessage()));
+            } else {
+                mainHandler.post(() -> listener.onIPFSInitFailed(status.message));
             }
         });
     }
 
-    public void uploadFileToIPFS(Uri fileUri, ContentResolver contentResolver, IPFSUploadListener listener) {
-        executorService.execute(() -> {
-            File tempFile = null;
-            try {
-                InputStream inputStream = contentResolver.openInputStream(fileUri);
-                if (inputStream == null) {
-                    mainHandler.post(() -> listener.onUploadFailed("Cannot open file"));
-                    return;
-                }
-                tempFile = File.createTempFile("ipfs_upload", ".tmp");
-                try (OutputStream outputStream = new FileOutputStream(tempFile)) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                }
-                NamedStreamable.FileWrapper fileWrapper = new NamedStreamable.FileWrapper(tempFile);
-                List<MerkleNode> result = ipfs.add(fileWrapper);
-                String cid = result.get(0).hash.toBase58();
-                mainHandler.post(() -> listener.onUploadSuccess(cid));
-            } catch (Exception e) {
-                mainHandler.post(() -> listener.onUploadFailed(e.getMessage()));
-            } finally {
-                if (tempFile != null && tempFile.exists()) {
-                    tempFile.delete();
-                }
+    private <T> IPFSTransfers.Callback<T> onMainThread(Consumer<T> success, Consumer<String> failure) {
+        return new IPFSTransfers.Callback<T>() {
+            @Override
+            public void onComplete(T result) {
+                mainHandler.post(() -> success.accept(result));
             }
-        });
-    }
 
-    public void downloadFileFromIPFS(String cid, Uri saveLocationUri,
-                                     ContentResolver contentResolver, IPFSDownloadListener listener) {
-        executorService.execute(() -> {
-            try (InputStream inputStream = ipfs.catStream(Multihash.fromBase58(cid));
-                 OutputStream outputStream = contentResolver.openOutputStream(saveLocationUri)) {
-                if (outputStream == null) {
-                    mainHandler.post(() -> listener.onDownloadFailed("Cannot create output file"));
-                    return;
-                }
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-                mainHandler.post(() -> listener.onDownloadSuccess(null));
-            } catch (Exception e) {
-                mainHandler.post(() -> listener.onDownloadFailed(e.getMessage()));
+            @Override
+            public void onFailed(Exception error) {
+                mainHandler.post(() -> failure.accept(error.getMessage()));
             }
-        });
+        };
+    }
+
+    public void setCheckpointedUploads(boolean checkpointedUploads) {
+        transfers.setCheckpointedUploads(checkpointedUploads);
+    }
+
+    public void setUploadProfile(UploadProfile uploadProfile) {
+        transfers.setUploadProfile(uploadProfile);
+    }
+
+    public UploadProfile getUploadProfile() {
+        return transfers.getUploadProfile();
+    }
+
+    public void setDeduplicatedUploads(boolean deduplicatedUploads) {
+        transfers.setDeduplicatedUploads(deduplicatedUploads);
+    }
+
+    public TransferHandle uploadFileToIPFS(Uri fileUri, ContentResolver contentResolver,
+                                           IPFSUploadListener listener) {
+        return transfers.upload(DocumentSources.source(contentResolver, fileUri),
+                onMainThread(listener::onUploadSuccess, listener::onUploadFailed));
+    }
+
+    public TransferHandle uploadFilesToIPFS(List<Uri> fileUris, ContentResolver contentResolver,
+                                            IPFSCollectionListener listener) {
+        return transfers.uploadCollection(() -> DocumentSources.fromDocuments(contentResolver, fileUris),
+                onMainThread(result -> listener.onCollectionUploaded(result.rootCid, result.fileCids),
+                        listener::onCollectionUploadFailed));
+    }
+
+    public TransferHandle uploadDocumentTreeToIPFS(Uri treeUri, ContentResolver contentResolver,
+                                                   IPFSCollectionListener listener) {
+        return transfers.uploadCollection(() -> DocumentSources.fromDocumentTree(contentResolver, treeUri),
+                onMainThread(result -> listener.onCollectionUploaded(result.rootCid, result.fileCids),
+                        listener::onCollectionUploadFailed));
+    }
+
+    public void setHedgedFetches(boolean hedgedFetches) {
+        transfers.setHedgedFetches(hedgedFetches);
+    }
+
+    public CidFetcher.HedgeStats getHedgeStats() {
+        return transfers.getHedgeStats();
+    }
+
+    public void setVerifiedDownloads(boolean verifiedDownloads) {
+        transfers.setVerifiedDownloads(verifiedDownloads);
+    }
+
+    public void setDownloadConcurrency(int downloadConcurrency) {
+        transfers.setDownloadConcurrency(downloadConcurrency);
+    }
+
+    public TransferHandle downloadFileFromIPFS(String cid, Uri saveLocationUri,
+                                               ContentResolver contentResolver, IPFSDownloadListener listener) {
+        return transfers.download(cid, DocumentSources.target(contentResolver, saveLocationUri),
+                onMainThread(ignored -> listener.onDownloadSuccess(null), listener::onDownloadFailed));
+    }
+
+    public TransferHandle downloadToFile(String cid, File target, LongConsumer contiguousBytes,
+                                         IPFSDownloadListener listener) {
+        return transfers.downloadToFile(cid, target, contiguousBytes,
+                onMainThread(ignored -> listener.onDownloadSuccess(null), listener::onDownloadFailed));
+    }
+
+    public TransferMetrics.Snapshot getTransferMetrics() {
+        return transfers.getTransferMetrics();
+    }
+
+    public ContentCache.Stats getCacheStats() {
+        return transfers.getCacheStats();
+    }
+
+    public void setCacheBudget(long maxBytes) {
+        transfers.setCacheBudget(maxBytes);
+    }
+
+    private static synchronized ContentCache sharedContentCache(Context context) {
+        if (sharedContentCache == null) {
+            sharedContentCache = new ContentCache(new File(context.getCacheDir(), "ipfs-content"),
+                    DEFAULT_CACHE_BYTES);
+        }
+        return sharedContentCache;
+    }
+
+    private static synchronized UploadIndex sharedUploadIndex(Context context) {
+        if (sharedUploadIndex == null) {
+            sharedUploadIndex = new UploadIndex(new File(context.getFilesDir(), "upload-index.log"));
+        }
+        return sharedUploadIndex;
     }
 
     public void isIPFSOnline(IPFSStatusListener listener) {
-        executorService.execute(() -> {
-            try {
-                ipfs.refs.local();
-                mainHandler.post(() -> listener.onIPFSStatusChecked(true, "Connected"));
-            } catch (Exception e) {
-                mainHandler.post(() -> listener.onIPFSStatusChecked(false,
-                        e.getMessage() != null ? e.getMessage() : "Connection failed"));
-            }
-        });
+        transfers.probe(status -> mainHandler.post(() -> listener.onIPFSStatusChecked(status.online,
+                status.message)));
+    }
+
+    public IPFSHealthMonitor.HealthStatus getHealthStatus() {
+        return transfers.getHealthStatus();
+    }
+
+    public List<IPFSClient> getNodes() {
+        return transfers.getNodes();
+    }
+
+    public void setHeartbeatEnabled(boolean enabled) {
+        transfers.setHeartbeatEnabled(enabled, HEARTBEAT_INTERVAL_MILLIS);
     }
 
     public interface IPFSInitListener {
@@ -121,12 +179,17 @@ public class IPFSManager {
         void onUploadFailed(String error);
     }
 
+    public interface IPFSCollectionListener {
+        void onCollectionUploaded(String rootCid, Map<String, String> fileCids);
+        void onCollectionUploadFailed(String error);
+    }
+
     public interface IPFSDownloadListener {
         void onDownloadSuccess(byte[] fileData);
         void onDownloadFailed(String error);
     }
 
     public void shutdown() {
-        executorService.shutdownNow();
+        transfers.shutdown();
     }
-}
\ No newline at end of file
+}
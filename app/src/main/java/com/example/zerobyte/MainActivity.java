@@ -9,6 +9,8 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
     private TextView tvWelcome;
@@ -16,6 +18,7 @@ public class MainActivity extends AppCompatActivity {
     private Button btnUploadFile, btnDownloadFile, btnCheckIPFSStatus, btnLogout;
     private FirebaseAuth mAuth;
     private IPFSManager ipfsManager;
+    private List<String> ipfsManagerAddresses;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,60 +47,77 @@ public class MainActivity extends AppCompatActivity {
         btnLogout.setOnClickListener(v -> logoutUser());
     }
 
-    private String getIPFSAddress() {
-        String ip = etIPAddress.getText().toString().trim();
+    private ArrayList<String> getIPFSAddresses() {
         String port = etPortNumber.getText().toString().trim();
-        return "/ip4/" + ip + "/tcp/" + port;
+        ArrayList<String> addresses = new ArrayList<>();
+        for (String entry : etIPAddress.getText().toString().split(",")) {
+            String ip = entry.trim();
+            if (ip.isEmpty()) {
+                continue;
+            }
+            int separator = ip.indexOf(':');
+            if (separator > 0) {
+                addresses.add("/ip4/" + ip.substring(0, separator) + "/tcp/" + ip.substring(separator + 1));
+            } else {
+                addresses.add("/ip4/" + ip + "/tcp/" + port);
+            }
+        }
+        return addresses;
     }
 
     private void navigateToUploadActivity() {
-        String ipfsAddress = getIPFSAddress();
-        if (ipfsAddress.isEmpty() || !isValidIPFSAddress(ipfsAddress)) {
+        ArrayList<String> ipfsAddresses = getIPFSAddresses();
+        if (!areValidIPFSAddresses(ipfsAddresses)) {
             Toast.makeText(this, "Please enter valid IP and Port", Toast.LENGTH_SHORT).show();
             return;
         }
         Intent intent = new Intent(MainActivity.this, UploadActivity.class);
-        intent.putExtra("IPFS_ADDRESS", ipfsAddress);
+        intent.putExtra("IPFS_ADDRESSES", ipfsAddresses.toArray(new String[0]));
         startActivity(intent);
     }
 
     private void navigateToDownloadActivity() {
-        String ipfsAddress = getIPFSAddress();
-        if (ipfsAddress.isEmpty() || !isValidIPFSAddress(ipfsAddress)) {
+        ArrayList<String> ipfsAddresses = getIPFSAddresses();
+        if (!areValidIPFSAddresses(ipfsAddresses)) {
             Toast.makeText(this, "Please enter valid IP and Port", Toast.LENGTH_SHORT).show();
             return;
         }
         Intent intent = new Intent(MainActivity.this, DownloadActivity.class);
-        intent.putExtra("IPFS_ADDRESS", ipfsAddress);
+        intent.putExtra("IPFS_ADDRESSES", ipfsAddresses.toArray(new String[0]));
         startActivity(intent);
     }
 
-    private boolean isValidIPFSAddress(String address) {
-        return address.startsWith("/ip4/") && address.contains("/tcp/");
+    private boolean areValidIPFSAddresses(List<String> addresses) {
+        if (addresses.isEmpty()) {
+            return false;
+        }
+        for (String address : addresses) {
+            if (!address.startsWith("/ip4/") || !address.contains("/tcp/") || address.endsWith("/tcp/")) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void checkIPFSStatus() {
-        String ipfsAddress = getIPFSAddress();
-        if (ipfsAddress.isEmpty() || !isValidIPFSAddress(ipfsAddress)) {
+        ArrayList<String> ipfsAddresses = getIPFSAddresses();
+        if (!areValidIPFSAddresses(ipfsAddresses)) {
             Toast.makeText(this, "Please enter valid IP and Port", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        ipfsManager = new IPFSManager(this, ipfsAddress, new IPFSManager.IPFSInitListener() {
+        if (ipfsManager != null && ipfsAddresses.equals(ipfsManagerAddresses)) {
+            showIPFSStatus();
+            return;
+        }
+        if (ipfsManager != null) {
+            ipfsManager.shutdown();
+        }
+        ipfsManagerAddresses = ipfsAddresses;
+        ipfsManager = new IPFSManager(this, ipfsAddresses, new IPFSManager.IPFSInitListener() {
             @Override
             public void onIPFSInitialized() {
-                ipfsManager.isIPFSOnline(new IPFSManager.IPFSStatusListener() {
-                    @Override
-                    public void onIPFSStatusChecked(boolean isOnline, String message) {
-                        runOnUiThread(() -> {
-                            Toast.makeText(
-                                    MainActivity.this,
-                                    isOnline ? "Online" : "Offline",
-                                    Toast.LENGTH_SHORT
-                            ).show();
-                        });
-                    }
-                });
+                showIPFSStatus();
             }
 
             @Override
@@ -111,6 +131,29 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    private void showIPFSStatus() {
+        ipfsManager.isIPFSOnline(new IPFSManager.IPFSStatusListener() {
+            @Override
+            public void onIPFSStatusChecked(boolean isOnline, String message) {
+                runOnUiThread(() -> {
+                    Toast.makeText(
+                            MainActivity.this,
+                            isOnline ? "Online" : "Offline",
+                            Toast.LENGTH_SHORT
+                    ).show();
+                });
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (ipfsManager != null) {
+            ipfsManager.shutdown();
+        }
+        super.onDestroy();
+    }
+
     private void logoutUser() {
         mAuth.signOut();
         Toast.makeText(this, "Logged out successfully", Toast.LENGTH_SHORT).show();
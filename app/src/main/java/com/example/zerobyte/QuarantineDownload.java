@@ -0,0 +1,222 @@
+package com.example.zerobyte;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+public class QuarantineDownload {
+    private final IPFSManager ipfsManager;
+    private final ContentResolver contentResolver;
+    private final ScanVerdictCache verdicts;
+    private final TransferScheduler scheduler = IPFSClientRegistry.getInstance().scheduler();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final String cid;
+    private final Uri destination;
+    private final File quarantineFile;
+    private final TailHasher hasher;
+    private final Listener listener;
+    private final CompletableFuture<Void> downloaded = new CompletableFuture<>();
+    private final CompletableFuture<String> hashed = new CompletableFuture<>();
+    private TransferHandle hashTask;
+    private TransferHandle download;
+    private CompletableFuture<VirusTotalClient.ScanResult> scanning;
+    private boolean approved;
+    private boolean publishing;
+    private boolean discarded;
+
+    public QuarantineDownload(IPFSManager ipfsManager, ContentResolver contentResolver, File quarantineDir,
+                              ScanVerdictCache verdicts, String cid, Uri destination, Listener listener) {
+        this.ipfsManager = ipfsManager;
+        this.contentResolver = contentResolver;
+        this.verdicts = verdicts;
+        this.cid = cid;
+        this.destination = destination;
+        this.listener = listener;
+        quarantineDir.mkdirs();
+        this.quarantineFile = new File(quarantineDir, cid);
+        this.hasher = new TailHasher(quarantineFile);
+    }
+
+    public interface Listener {
+        void onVerdict(VirusTotalClient.ScanResult result);
+        void onDownloadProgress(TransferProgress.Snapshot progress);
+        void onScanProgress(TransferProgress.Snapshot progress);
+        void onPublished();
+        void onFailed(String error);
+    }
+
+    public void start() {
+        scheduler.control(() -> {
+            VirusTotalClient.ScanResult known = verdicts.forCid(cid);
+            synchronized (this) {
+                if (discarded) {
+                    return;
+                }
+                hashTask = scheduler.control(() -> {
+                    try {
+                        hashed.complete(hasher.hash());
+                    } catch (IOException e) {
+                        hashed.completeExceptionally(e);
+                    }
+                });
+                download = ipfsManager.downloadToFile(cid, quarantineFile, hasher::advance,
+                        new IPFSManager.IPFSDownloadListener() {
+                            @Override
+                            public void onDownloadSuccess(byte[] fileData) {
+                                hasher.finish(quarantineFile.length());
+                                downloaded.complete(null);
+                                publishIfApproved();
+                            }
+
+                            @Override
+                            public void onDownloadFailed(String error) {
+                                hasher.abort();
+                                downloaded.completeExceptionally(new IOException(error));
+                                if (!isDiscarded()) {
+                                    listener.onFailed(error);
+                                }
+                            }
+                        });
+                download.progress().listen(progress -> {
+                    if (!isDiscarded()) {
+                        listener.onDownloadProgress(progress);
+                    }
+                }, mainHandler::post);
+            }
+            if (known != null) {
+                handleVerdict(known);
+            } else {
+                scan();
+            }
+        });
+    }
+
+    public void rescan() {
+        scan();
+    }
+
+    public void publish() {
+        synchronized (this) {
+            approved = true;
+        }
+        publishIfApproved();
+    }
+
+    public void discard() {
+        TransferHandle pendingDownload;
+        TransferHandle pendingHash;
+        CompletableFuture<VirusTotalClient.ScanResult> pendingScan;
+        synchronized (this) {
+            discarded = true;
+            pendingDownload = download;
+            pendingHash = hashTask;
+            pendingScan = scanning;
+        }
+        if (pendingScan != null) {
+            pendingScan.cancel(true);
+        }
+        hasher.abort();
+        if (pendingDownload != null) {
+            pendingDownload.cancel();
+        }
+        if (pendingHash != null) {
+            pendingHash.cancel();
+        }
+        scheduler.control(quarantineFile::delete);
+    }
+
+    private synchronized boolean isDiscarded() {
+        return discarded;
+    }
+
+    private void scan() {
+        TransferProgress progress = new TransferProgress();
+        progress.listen(snapshot -> {
+            if (!isDiscarded()) {
+                listener.onScanProgress(snapshot);
+            }
+        }, mainHandler::post);
+        hashed.thenCompose(sha256 -> startScan(sha256, progress))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        if (!downloaded.isCompletedExceptionally()) {
+                            handleVerdict(new VirusTotalClient.ScanResult("Scan failed: " + error.getMessage(), true));
+                        }
+                        return;
+                    }
+                    handleVerdict(result);
+                });
+    }
+
+    private CompletableFuture<VirusTotalClient.ScanResult> startScan(String sha256, TransferProgress progress) {
+        long contentSize;
+        synchronized (this) {
+            contentSize = download != null ? download.progress().totalBytes() : TransferScheduler.UNKNOWN_SIZE;
+        }
+        CompletableFuture<VirusTotalClient.ScanResult> scan = VirusTotalClient.scanAsync(
+                TransferSource.forFile(quarantineFile), cid, contentSize, sha256, verdicts, progress);
+        synchronized (this) {
+            scanning = scan;
+            if (discarded) {
+                scan.cancel(true);
+            }
+        }
+        return scan;
+    }
+
+    private void handleVerdict(VirusTotalClient.ScanResult result) {
+        if (result.isError || result.isInfected()) {
+            mainHandler.post(() -> {
+                if (!isDiscarded()) {
+                    listener.onVerdict(result);
+                }
+            });
+            return;
+        }
+        publish();
+    }
+
+    private void publishIfApproved() {
+        synchronized (this) {
+            if (!approved || publishing || discarded || !downloaded.isDone()
+                    || downloaded.isCompletedExceptionally()) {
+                return;
+            }
+            publishing = true;
+        }
+        scheduler.bulk(Collections.emptyList(), quarantineFile.length(), () -> {
+            try {
+                copyToDestination();
+                quarantineFile.delete();
+                mainHandler.post(listener::onPublished);
+            } catch (IOException e) {
+                mainHandler.post(() -> listener.onFailed("Cannot save file: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void copyToDestination() throws IOException {
+        try (ParcelFileDescriptor descriptor = contentResolver.openFileDescriptor(destination, "rwt")) {
+            if (descriptor == null) {
+                throw new IOException("Cannot create output file");
+            }
+            try (FileChannel source = new FileInputStream(quarantineFile).getChannel();
+                 FileChannel target = new FileOutputStream(descriptor.getFileDescriptor()).getChannel()) {
+                long size = source.size();
+                long copied = 0;
+                while (copied < size) {
+                    copied += source.transferTo(copied, size - copied, target);
+                }
+            }
+        }
+    }
+}
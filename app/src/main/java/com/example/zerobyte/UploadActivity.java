@@ -1,5 +1,6 @@
 package com.example.zerobyte;
 
+import android.app.AlertDialog;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.ContentResolver;
@@ -15,16 +16,22 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class UploadActivity extends AppCompatActivity {
     private static final int PICK_FILE_REQUEST = 1;
-    private Button btnUpload, btnCheckIPFS;
+    private static final int PICK_FOLDER_REQUEST = 2;
+    private Button btnUpload, btnUploadFolder, btnCheckIPFS, btnMetrics;
     private EditText txtFileStatus;
     private Uri fileUri;
+    private final List<Uri> fileUris = new ArrayList<>();
+    private Uri folderUri;
     private IPFSManager ipfsManager;
+    private TransferHandle currentUpload;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -32,17 +39,19 @@ public class UploadActivity extends AppCompatActivity {
         setContentView(R.layout.activity_upload);
 
         btnUpload = findViewById(R.id.btnUpload);
+        btnUploadFolder = findViewById(R.id.btnUploadFolder);
         btnCheckIPFS = findViewById(R.id.btnCheckIPFS);
+        btnMetrics = findViewById(R.id.btnMetrics);
         txtFileStatus = findViewById(R.id.txtFileStatus);
 
-        String ipfsAddress = getIntent().getStringExtra("IPFS_ADDRESS");
-        if (ipfsAddress == null || ipfsAddress.isEmpty() || !isValidIPFSAddress(ipfsAddress)) {
+        String[] ipfsAddresses = getIntent().getStringArrayExtra("IPFS_ADDRESSES");
+        if (ipfsAddresses == null || ipfsAddresses.length == 0 || !areValidIPFSAddresses(ipfsAddresses)) {
             Toast.makeText(this, "Invalid IPFS address", Toast.LENGTH_SHORT).show();
             finish();
             return;
         }
 
-        ipfsManager = new IPFSManager(this, ipfsAddress, new IPFSManager.IPFSInitListener() {
+        ipfsManager = new IPFSManager(this, Arrays.asList(ipfsAddresses), new IPFSManager.IPFSInitListener() {
             @Override
             public void onIPFSInitialized() {
             }
@@ -52,62 +61,138 @@ public class UploadActivity extends AppCompatActivity {
                 runOnUiThread(() -> Toast.makeText(UploadActivity.this, "Offline", Toast.LENGTH_SHORT).show());
             }
         });
+        ipfsManager.setCheckpointedUploads(getIntent().getBooleanExtra("CHECKPOINTED_UPLOADS", false));
+        ipfsManager.setHeartbeatEnabled(true);
         txtFileStatus.setOnClickListener(view -> openFileChooser());
+        btnUploadFolder.setOnClickListener(view -> openFolderChooser());
         btnUpload.setOnClickListener(view -> uploadFileToIPFS());
         btnCheckIPFS.setOnClickListener(view -> checkIPFSStatus());
+        btnMetrics.setOnClickListener(view -> showTransferMetrics());
     }
 
-    private boolean isValidIPFSAddress(String address) {
-        return address.startsWith("/ip4/") && address.contains("/tcp/");
+    private boolean areValidIPFSAddresses(String[] addresses) {
+        for (String address : addresses) {
+            if (!address.startsWith("/ip4/") || !address.contains("/tcp/")) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void openFileChooser() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
         startActivityForResult(intent, PICK_FILE_REQUEST);
     }
 
+    private void openFolderChooser() {
+        startActivityForResult(new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE), PICK_FOLDER_REQUEST);
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == PICK_FILE_REQUEST && resultCode == RESULT_OK && data != null) {
-            fileUri = data.getData();
-            if (fileUri != null) {
+            fileUris.clear();
+            folderUri = null;
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    fileUris.add(clipData.getItemAt(i).getUri());
+                }
+            } else if (data.getData() != null) {
+                fileUris.add(data.getData());
+            }
+            fileUri = fileUris.isEmpty() ? null : fileUris.get(0);
+            if (fileUris.size() > 1) {
+                txtFileStatus.setText(fileUris.size() + " files");
+            } else if (fileUri != null) {
                 String fileName = getFileName(fileUri);
                 txtFileStatus.setText(fileName != null ? fileName : "Unknown file");
             }
+        } else if (requestCode == PICK_FOLDER_REQUEST && resultCode == RESULT_OK && data != null) {
+            folderUri = data.getData();
+            fileUris.clear();
+            fileUri = null;
+            if (folderUri != null) {
+                txtFileStatus.setText("Folder: " + folderUri.getLastPathSegment());
+            }
         }
     }
 
     private void uploadFileToIPFS() {
+        if (currentUpload != null && !currentUpload.isDone()) {
+            currentUpload.cancel();
+            txtFileStatus.setText("Upload cancelled");
+            return;
+        }
+        if (folderUri != null) {
+            showUploadProgress(ipfsManager.uploadDocumentTreeToIPFS(folderUri, getContentResolver(),
+                    collectionListener()));
+            return;
+        }
+        if (fileUris.size() > 1) {
+            showUploadProgress(ipfsManager.uploadFilesToIPFS(new ArrayList<>(fileUris), getContentResolver(),
+                    collectionListener()));
+            return;
+        }
         if (fileUri == null) {
             Toast.makeText(this, "Select a file first", Toast.LENGTH_SHORT).show();
             return;
         }
-        try {
-            File file = getFileFromUri(fileUri);
-            if (file == null || !file.exists()) {
-                Toast.makeText(this, "File not found", Toast.LENGTH_SHORT).show();
-                return;
+        TransferHandle upload = ipfsManager.uploadFileToIPFS(fileUri, getContentResolver(),
+                new IPFSManager.IPFSUploadListener() {
+                    @Override
+                    public void onUploadSuccess(String cid) {
+                        runOnUiThread(() -> {
+                            txtFileStatus.setText(cid);
+                            copyToClipboard(cid);
+                            Toast.makeText(UploadActivity.this, "Uploaded! CID copied", Toast.LENGTH_SHORT).show();
+                        });
+                    }
+
+                    @Override
+                    public void onUploadFailed(String error) {
+                        runOnUiThread(() -> Toast.makeText(UploadActivity.this, "Upload failed",
+                                Toast.LENGTH_SHORT).show());
+                    }
+                });
+        showUploadProgress(upload);
+    }
+
+    private void showUploadProgress(TransferHandle upload) {
+        currentUpload = upload;
+        btnUpload.setText("Cancel Upload");
+        upload.whenDone(() -> runOnUiThread(() -> {
+            if (currentUpload == upload) {
+                btnUpload.setText("Upload to IPFS");
             }
-            ipfsManager.uploadFileToIPFS(fileUri, getContentResolver(), new IPFSManager.IPFSUploadListener() {
-                @Override
-                public void onUploadSuccess(String cid) {
-                    runOnUiThread(() -> {
-                        txtFileStatus.setText(cid);
-                        copyToClipboard(cid);
-                        Toast.makeText(UploadActivity.this, "Uploaded! CID copied", Toast.LENGTH_SHORT).show();
-                    });
-                }
+        }));
+        upload.progress().listen(progress -> {
+            if (currentUpload == upload && !progress.finished) {
+                txtFileStatus.setText("Uploading " + progress);
+            }
+        }, this::runOnUiThread);
+    }
 
-                @Override
-                public void onUploadFailed(String error) {
-                    runOnUiThread(() -> Toast.makeText(UploadActivity.this, "Upload failed", Toast.LENGTH_SHORT).show());
-                }
-            });
-        } catch (Exception e) {
-            Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
+    private IPFSManager.IPFSCollectionListener collectionListener() {
+        return new IPFSManager.IPFSCollectionListener() {
+            @Override
+            public void onCollectionUploaded(String rootCid, Map<String, String> fileCids) {
+                runOnUiThread(() -> {
+                    txtFileStatus.setText(rootCid);
+                    copyToClipboard(rootCid);
+                    Toast.makeText(UploadActivity.this, "Uploaded " + fileCids.size() + " items! CID copied",
+                            Toast.LENGTH_SHORT).show();
+                });
+            }
+
+            @Override
+            public void onCollectionUploadFailed(String error) {
+                runOnUiThread(() -> Toast.makeText(UploadActivity.this, "Upload failed", Toast.LENGTH_SHORT).show());
+            }
+        };
     }
 
     private void checkIPFSStatus() {
@@ -125,6 +210,40 @@ public class UploadActivity extends AppCompatActivity {
         });
     }
 
+    private void showTransferMetrics() {
+        if (ipfsManager == null) {
+            Toast.makeText(this, "Offline", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Transfer Metrics")
+                .setMessage(ipfsManager.getTransferMetrics().toString())
+                .setPositiveButton("Save", (d, w) -> saveTransferMetrics())
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    private void saveTransferMetrics() {
+        File file = new File(getFilesDir(), "transfer-metrics.json");
+        IPFSClientRegistry.getInstance().scheduler().control(() -> {
+            try {
+                TransferMetrics.shared().dump(file);
+                runOnUiThread(() -> Toast.makeText(this, "Saved to " + file.getName(), Toast.LENGTH_SHORT).show());
+            } catch (IOException e) {
+                runOnUiThread(() -> Toast.makeText(this, "Cannot save metrics: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (ipfsManager != null) {
+            ipfsManager.shutdown();
+        }
+        super.onDestroy();
+    }
+
     private void copyToClipboard(String text) {
         ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
         ClipData clip = ClipData.newPlainText("CID", text);
@@ -148,19 +267,4 @@ public class UploadActivity extends AppCompatActivity {
         }
         return result;
     }
-
-    private File getFileFromUri(Uri uri) throws IOException {
-        InputStream inputStream = getContentResolver().openInputStream(uri);
-        if (inputStream == null) throw new IOException("Cannot open file");
-        File tempFile = File.createTempFile("ipfs_upload", null, getCacheDir());
-        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
-            byte[] buffer = new byte[4 * 1024];
-            int read;
-            while ((read = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, read);
-            }
-            outputStream.flush();
-        }
-        return tempFile;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(testFixtures(project(":core")))
+    implementation(libs.okhttp)
+    implementation(libs.org.json)
+    jmh(libs.jmh.core)
+    jmhAnnotationProcessor(libs.jmh.generator)
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs concurrent uploads and downloads against in-process fake IPFS nodes."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.zerobyte.LoadDriver")
+    args = providers.gradleProperty("loadArgs").map { it.split(" ") }.getOrElse(emptyList())
+}
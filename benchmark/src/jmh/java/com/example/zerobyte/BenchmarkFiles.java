@@ -0,0 +1,74 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+public class BenchmarkFiles {
+    private BenchmarkFiles() {
+    }
+
+    public static File create(long size) throws IOException {
+        File file = File.createTempFile("zerobyte-bench", ".bin");
+        file.deleteOnExit();
+        Random random = new Random(size);
+        byte[] block = new byte[64 * 1024];
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            long written = 0;
+            while (written < size) {
+                random.nextBytes(block);
+                int length = (int) Math.min(block.length, size - written);
+                outputStream.write(block, 0, length);
+                written += length;
+            }
+        }
+        return file;
+    }
+
+    public static class DiscardChannel implements WritableByteChannel {
+        private long written;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            source.position(source.limit());
+            written += length;
+            return length;
+        }
+
+        public long written() {
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static class DiscardStream extends OutputStream {
+        private long written;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            written += length;
+        }
+
+        public long written() {
+            return written;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CopyBenchmark {
+    @Param({"1048576", "16777216", "134217728"})
+    public long fileSize;
+
+    @Param({"8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private File source;
+
+    @Setup(Level.Trial)
+    public void createSource() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSource() {
+        source.delete();
+    }
+
+    @Benchmark
+    public long streamLoop() throws IOException {
+        BenchmarkFiles.DiscardStream target = new BenchmarkFiles.DiscardStream();
+        try (InputStream inputStream = new FileInputStream(source)) {
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+            }
+        }
+        return target.written();
+    }
+
+    @Benchmark
+    public long directBufferLoop() throws IOException {
+        BenchmarkFiles.DiscardChannel target = new BenchmarkFiles.DiscardChannel();
+        try (FileChannel channel = new FileInputStream(source).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                target.write(buffer);
+                buffer.clear();
+            }
+        }
+        return target.written();
+    }
+
+    @Benchmark
+    public long bufferedTransfer() throws IOException {
+        BenchmarkFiles.DiscardChannel target = new BenchmarkFiles.DiscardChannel();
+        try (FileChannel channel = new FileInputStream(source).getChannel();
+             BufferedTransfer transfer = new BufferedTransfer(BufferPool.shared())) {
+            transfer.copy(channel, target);
+        }
+        return target.written();
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        BenchmarkFiles.DiscardChannel target = new BenchmarkFiles.DiscardChannel();
+        try (FileChannel channel = new FileInputStream(source).getChannel()) {
+            long size = channel.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, target);
+            }
+        }
+        return target.written();
+    }
+}
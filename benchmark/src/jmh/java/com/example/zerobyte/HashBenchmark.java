@@ -0,0 +1,77 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HashBenchmark {
+    @Param({"1048576", "16777216", "134217728"})
+    public long fileSize;
+
+    @Param({"8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private File source;
+
+    @Setup(Level.Trial)
+    public void createSource() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSource() {
+        source.delete();
+    }
+
+    @Benchmark
+    public byte[] sha256Stream() throws IOException {
+        MessageDigest digest = CidCodec.newSha256();
+        try (InputStream inputStream = new FileInputStream(source)) {
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    @Benchmark
+    public String sha256Pooled() throws IOException {
+        try (InputStream inputStream = new FileInputStream(source)) {
+            return VirusTotalCodec.sha256(inputStream);
+        }
+    }
+
+    @Benchmark
+    public String localCid() throws IOException {
+        CidBuilder builder = new CidBuilder();
+        try (FileChannel channel = new FileInputStream(source).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                builder.update(buffer);
+                buffer.clear();
+            }
+        }
+        return builder.finish();
+    }
+}
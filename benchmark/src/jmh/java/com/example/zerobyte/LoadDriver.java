@@ -0,0 +1,201 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class LoadDriver {
+    private final int nodeCount;
+    private final int uploads;
+    private final int downloads;
+    private final long fileSize;
+    private final long latencyMillis;
+    private final long bandwidthBytesPerSecond;
+    private final double errorRate;
+    private final boolean direct;
+    private final String metricsFile;
+    private final TransferMetrics metrics = TransferMetrics.shared();
+
+    LoadDriver(Map<String, String> options) {
+        nodeCount = Integer.parseInt(options.getOrDefault("nodes", "1"));
+        uploads = Integer.parseInt(options.getOrDefault("uploads", "16"));
+        downloads = Integer.parseInt(options.getOrDefault("downloads", "16"));
+        fileSize = Long.parseLong(options.getOrDefault("size", "4194304"));
+        latencyMillis = Long.parseLong(options.getOrDefault("latency", "20"));
+        bandwidthBytesPerSecond = Long.parseLong(options.getOrDefault("bandwidth", "0"));
+        errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        direct = Boolean.parseBoolean(options.getOrDefault("direct", "false"));
+        metricsFile = options.get("metrics");
+    }
+
+    private static class Samples {
+        final String name;
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+
+        Samples(String name) {
+            this.name = name;
+        }
+
+        void report(long wallNanos) {
+            long[] sorted;
+            synchronized (latencies) {
+                sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(sorted);
+            double seconds = wallNanos / 1e9;
+            System.out.printf(Locale.US, "%-9s ok=%d failed=%d  %.1f ops/s  %.2f MB/s  p50=%dms p90=%dms p99=%dms max=%dms%n",
+                    name, sorted.length, failures.get(), sorted.length / seconds,
+                    bytes.get() / seconds / (1024 * 1024), percentile(sorted, 0.5), percentile(sorted, 0.9),
+                    percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: LoadDriver [--nodes=1] [--uploads=16] [--downloads=16] [--size=4194304]"
+                        + " [--latency=20] [--bandwidth=0] [--error-rate=0] [--direct=false] [--metrics=<file>]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadDriver(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        List<FakeIpfsNode> fakes = new ArrayList<>();
+        List<IPFSClient> clients = new ArrayList<>();
+        IPFSClientRegistry registry = IPFSClientRegistry.getInstance();
+        byte[] content = new byte[(int) fileSize];
+        new Random(fileSize).nextBytes(content);
+        String cid = null;
+        for (int i = 0; i < nodeCount; i++) {
+            FakeIpfsNode fake = new FakeIpfsNode();
+            fake.setRetainUploads(false);
+            cid = fake.put(content);
+            fake.setLatencyMillis(latencyMillis);
+            fake.setBandwidthBytesPerSecond(bandwidthBytesPerSecond);
+            fake.setErrorRate(errorRate);
+            fakes.add(fake);
+            clients.add(registry.acquire(fake.multiAddress()));
+        }
+        File source = BenchmarkFiles.create(fileSize);
+        IPFSNodeRouter router = new IPFSNodeRouter(clients);
+        CidFetcher fetcher = new CidFetcher(router, registry.fetchExecutor(), registry.scheduler());
+        fetcher.setHedging(clients.size() > 1);
+        TransferScheduler scheduler = registry.scheduler();
+        ExecutorService directExecutor = Executors.newCachedThreadPool();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        int baselineThreads = threads.getThreadCount();
+        metrics.reset();
+
+        Samples uploadSamples = new Samples("upload");
+        Samples downloadSamples = new Samples("download");
+        CountDownLatch done = new CountDownLatch(uploads + downloads);
+        String downloadCid = cid;
+        long start = System.nanoTime();
+        for (int i = 0; i < Math.max(uploads, downloads); i++) {
+            if (i < uploads) {
+                submit(scheduler, directExecutor, clients, handle -> {
+                    long began = System.nanoTime();
+                    try (FileChannel channel = new FileInputStream(source).getChannel()) {
+                        router.execute(api -> api.addRegion("file", channel, 0, fileSize, null, null), false, handle);
+                        metrics.recordTransfer(TransferMetrics.UPLOAD_TIME, TransferMetrics.UPLOAD_THROUGHPUT,
+                                TransferMetrics.UPLOAD_BYTES, began, fileSize);
+                        uploadSamples.bytes.addAndGet(fileSize);
+                        uploadSamples.latencies.add(IPFSNodeRouter.elapsedMillis(began));
+                    } catch (Exception e) {
+                        metrics.increment(TransferMetrics.UPLOAD_FAILURES);
+                        uploadSamples.failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            if (i < downloads) {
+                submit(scheduler, directExecutor, clients, handle -> {
+                    long began = System.nanoTime();
+                    try (CidFetcher.Fetch fetch = fetcher.open(downloadCid, 0, -1, new HashSet<>(), handle);
+                         BufferedTransfer transfer = new BufferedTransfer(BufferPool.shared())) {
+                        BenchmarkFiles.DiscardChannel target = new BenchmarkFiles.DiscardChannel();
+                        transfer.copy(fetch.source, target);
+                        metrics.recordTransfer(TransferMetrics.DOWNLOAD_TIME, TransferMetrics.DOWNLOAD_THROUGHPUT,
+                                TransferMetrics.DOWNLOAD_BYTES, began, target.written());
+                        downloadSamples.bytes.addAndGet(target.written());
+                        downloadSamples.latencies.add(IPFSNodeRouter.elapsedMillis(began));
+                    } catch (Exception e) {
+                        metrics.increment(TransferMetrics.DOWNLOAD_FAILURES);
+                        downloadSamples.failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        done.await(30, TimeUnit.MINUTES);
+        long wallNanos = System.nanoTime() - start;
+
+        System.out.printf(Locale.US, "nodes=%d size=%d latency=%dms bandwidth=%s error-rate=%.2f mode=%s%n",
+                nodeCount, fileSize, latencyMillis,
+                bandwidthBytesPerSecond > 0 ? bandwidthBytesPerSecond + "B/s" : "unlimited", errorRate,
+                direct ? "direct" : "scheduler");
+        uploadSamples.report(wallNanos);
+        downloadSamples.report(wallNanos);
+        CidFetcher.HedgeStats hedges = fetcher.stats();
+        System.out.printf(Locale.US, "wall=%dms threads: baseline=%d peak=%d  hedges=%d/%d won  buffers=%d allocated%n",
+                TimeUnit.NANOSECONDS.toMillis(wallNanos), baselineThreads, threads.getPeakThreadCount(),
+                hedges.hedgeWins, hedges.hedgesFired, BufferPool.shared().stats().allocations);
+        System.out.print(metrics.snapshot());
+        if (metricsFile != null) {
+            metrics.dump(new File(metricsFile));
+        }
+
+        directExecutor.shutdownNow();
+        for (IPFSClient client : clients) {
+            client.release();
+        }
+        for (FakeIpfsNode fake : fakes) {
+            fake.close();
+        }
+        source.delete();
+    }
+
+    private void submit(TransferScheduler scheduler, ExecutorService directExecutor, List<IPFSClient> clients,
+                        Consumer<TransferHandle> transfer) {
+        if (direct) {
+            directExecutor.execute(() -> transfer.accept(null));
+        } else {
+            TransferHandle handle = new TransferHandle(scheduler);
+            scheduler.bulk(handle, clients, fileSize, () -> transfer.accept(handle));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.zerobyte;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MockVirusTotal implements Closeable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong analyses = new AtomicLong();
+    private final String report;
+
+    public MockVirusTotal(int engines) throws IOException {
+        report = report(engines);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/v3/files", this::handleUpload);
+        server.createContext("/api/v3/analyses/", this::handleAnalysis);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v3";
+    }
+
+    public String report() {
+        return report;
+    }
+
+    public static String report(int engines) {
+        StringBuilder results = new StringBuilder();
+        for (int i = 0; i < engines; i++) {
+            if (i > 0) {
+                results.append(',');
+            }
+            results.append("\"Engine").append(i).append("\":{\"category\":\"undetected\",\"engine_name\":\"Engine")
+                    .append(i).append("\",\"engine_version\":\"1.0.").append(i)
+                    .append("\",\"result\":null,\"method\":\"blacklist\",\"engine_update\":\"20240101\"}");
+        }
+        return "{\"data\":{\"id\":\"analysis-0\",\"type\":\"analysis\",\"attributes\":{\"status\":\"completed\","
+                + "\"date\":1704067200,\"stats\":{\"malicious\":0,\"suspicious\":0,\"undetected\":" + engines
+                + ",\"harmless\":0,\"timeout\":0,\"confirmed-timeout\":0,\"failure\":0,\"type-unsupported\":0},"
+                + "\"results\":{" + results + "}}}}";
+    }
+
+    private void handleUpload(HttpExchange exchange) throws IOException {
+        FakeIpfsNode.drain(exchange.getRequestBody());
+        FakeIpfsNode.respond(exchange, 200, "{\"data\":{\"type\":\"analysis\",\"id\":\"analysis-"
+                + analyses.incrementAndGet() + "\"}}");
+    }
+
+    private void handleAnalysis(HttpExchange exchange) throws IOException {
+        FakeIpfsNode.drain(exchange.getRequestBody());
+        FakeIpfsNode.respond(exchange, 200, report);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
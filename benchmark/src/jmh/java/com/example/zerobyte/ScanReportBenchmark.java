@@ -0,0 +1,34 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScanReportBenchmark {
+    @Param({"10", "70", "200"})
+    public int engines;
+
+    private String report;
+
+    @Setup
+    public void buildReport() {
+        report = MockVirusTotal.report(engines);
+    }
+
+    @Benchmark
+    public int parseStats() throws JSONException {
+        JSONObject stats = VirusTotalCodec.attributes(report).getJSONObject("stats");
+        return stats.getInt("malicious") + stats.getInt("suspicious") + stats.getInt("undetected");
+    }
+}
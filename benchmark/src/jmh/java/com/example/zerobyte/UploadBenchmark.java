@@ -0,0 +1,84 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UploadBenchmark {
+    @Param({"1048576", "16777216", "67108864"})
+    public long fileSize;
+
+    @Param({"8192", "65536"})
+    public int bufferSize;
+
+    private File source;
+    private FakeIpfsNode node;
+    private IPFSHttpAPI api;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+        node = new FakeIpfsNode();
+        node.setRetainUploads(false);
+        api = new IPFSHttpAPI(node.multiAddress());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        node.close();
+        source.delete();
+    }
+
+    @Benchmark
+    public String stagedThroughTempFile() throws IOException, JSONException {
+        File staged = File.createTempFile("zerobyte-stage", ".bin");
+        try {
+            try (InputStream inputStream = new FileInputStream(source);
+                 OutputStream outputStream = new FileOutputStream(staged)) {
+                byte[] buffer = new byte[bufferSize];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+            try (InputStream inputStream = new FileInputStream(staged)) {
+                return api.add("file", inputStream, null, null);
+            }
+        } finally {
+            staged.delete();
+        }
+    }
+
+    @Benchmark
+    public String streamed() throws IOException, JSONException {
+        try (InputStream inputStream = new FileInputStream(source)) {
+            return api.add("file", inputStream, null, null);
+        }
+    }
+
+    @Benchmark
+    public String fileRegion() throws IOException, JSONException {
+        try (FileChannel channel = new FileInputStream(source).getChannel()) {
+            return api.addRegion("file", channel, 0, channel.size(), null, null).hash;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirusTotalUploadBenchmark {
+    @Param({"65536", "1048576", "33554432"})
+    public long fileSize;
+
+    private final OkHttpClient client = new OkHttpClient();
+    private File source;
+    private MockVirusTotal virusTotal;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+        virusTotal = new MockVirusTotal(70);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        virusTotal.close();
+        source.delete();
+    }
+
+    @Benchmark
+    public String uploadAndPoll() throws IOException, JSONException {
+        String analysisId;
+        try (InputStream inputStream = new FileInputStream(source)) {
+            Request upload = new Request.Builder()
+                    .url(virusTotal.baseUrl() + "/files")
+                    .post(VirusTotalCodec.uploadBody(inputStream, fileSize, null))
+                    .build();
+            try (Response response = client.newCall(upload).execute()) {
+                analysisId = VirusTotalCodec.dataId(response.body().string());
+            }
+        }
+        Request poll = new Request.Builder().url(virusTotal.baseUrl() + "/analyses/" + analysisId).get().build();
+        try (Response response = client.newCall(poll).execute()) {
+            return VirusTotalCodec.attributes(response.body().string()).getString("status");
+        }
+    }
+}
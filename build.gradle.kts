@@ -1,4 +1,5 @@
 plugins {
     alias(libs.plugins.android.application) apply false
+    alias(libs.plugins.jmh) apply false
     id("com.google.gms.google-services") version "4.4.2" apply false
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.zerobyte.BulkTransfer")
+    applicationName = "zerobyte"
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(libs.okhttp)
+    implementation(libs.org.json)
+}
@@ -0,0 +1,266 @@
+package com.example.zerobyte;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BulkTransfer {
+    private static final String USAGE = "Usage: zerobyte upload <dir> | download <manifest> <dir> | scan <dir>\n"
+            + "  [--nodes=/ip4/127.0.0.1/tcp/5001,...] [--parallel=6] [--parallel-per-node=3]"
+            + " [--profile=default] [--wrap=false] [--segments=4]\n"
+            + "  [--checkpointed=false] [--verified=false] [--cache-mb=256] [--state=.zerobyte]"
+            + " [--metrics=<file>] [--vt-key=$VT_API_KEY] [--vt-rpm=4]";
+
+    private final List<String> nodes;
+    private final int parallel;
+    private final int parallelPerNode;
+    private final File stateDir;
+    private final Map<String, String> options;
+    private final Map<String, String> manifest = new TreeMap<>();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    BulkTransfer(Map<String, String> options) {
+        this.options = options;
+        nodes = Arrays.asList(options.getOrDefault("nodes", "/ip4/127.0.0.1/tcp/5001").split(","));
+        parallel = Math.max(1, Integer.parseInt(options.getOrDefault("parallel", "6")));
+        parallelPerNode = Math.max(1, Integer.parseInt(options.getOrDefault("parallel-per-node",
+                String.valueOf(Math.max(1, parallel / nodes.size())))));
+        stateDir = new File(options.getOrDefault("state", ".zerobyte"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                arguments.add(arg);
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                options.put(arg.substring(2), "true");
+            }
+        }
+        String command = arguments.isEmpty() ? "" : arguments.get(0);
+        boolean ok;
+        if (command.equals("upload") && arguments.size() == 2) {
+            ok = new BulkTransfer(options).upload(new File(arguments.get(1)));
+        } else if (command.equals("download") && arguments.size() == 3) {
+            ok = new BulkTransfer(options).download(new File(arguments.get(1)), new File(arguments.get(2)));
+        } else if (command.equals("scan") && arguments.size() == 2) {
+            ok = new BulkTransfer(options).scan(new File(arguments.get(1)));
+        } else {
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private IPFSTransfers open() {
+        if (!stateDir.isDirectory() && !stateDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create state directory " + stateDir);
+        }
+        IPFSTransfers transfers = new IPFSTransfers(new IPFSClientRegistry(parallel, parallelPerNode), nodes,
+                new TransferCheckpointStore(new File(stateDir, "transfers")),
+                new ContentCache(new File(stateDir, "ipfs-content"),
+                        Long.parseLong(options.getOrDefault("cache-mb", "256")) * 1024 * 1024),
+                new UploadIndex(new File(stateDir, "upload-index.log")));
+        transfers.setUploadProfile(UploadProfile.named(options.getOrDefault("profile", "default")));
+        transfers.setCheckpointedUploads(Boolean.parseBoolean(options.getOrDefault("checkpointed", "false")));
+        transfers.setVerifiedDownloads(Boolean.parseBoolean(options.getOrDefault("verified", "false")));
+        transfers.setDownloadConcurrency(Integer.parseInt(options.getOrDefault("segments", "4")));
+        return transfers;
+    }
+
+    boolean upload(File root) throws Exception {
+        List<CollectionUpload.Entry> entries = CollectionUpload.fromDirectory(root);
+        List<CollectionUpload.Entry> files = new ArrayList<>();
+        for (CollectionUpload.Entry entry : entries) {
+            if (!entry.isDirectory()) {
+                files.add(entry);
+            }
+        }
+        IPFSTransfers transfers = open();
+        long start = System.nanoTime();
+        if (Boolean.parseBoolean(options.getOrDefault("wrap", "false"))) {
+            CountDownLatch done = new CountDownLatch(1);
+            transfers.uploadCollection(() -> entries, new IPFSTransfers.Callback<CollectionUpload.Result>() {
+                @Override
+                public void onComplete(CollectionUpload.Result result) {
+                    synchronized (manifest) {
+                        for (CollectionUpload.Entry entry : entries) {
+                            String cid = result.fileCids.get(entry.path);
+                            if (!entry.isDirectory() && cid != null) {
+                                manifest.put(entry.path, cid);
+                                succeeded.incrementAndGet();
+                                bytes.addAndGet(Math.max(0, entry.size));
+                            }
+                        }
+                    }
+                    System.out.println("# root " + result.rootCid);
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(Exception error) {
+                    System.err.println("Upload failed: " + error.getMessage());
+                    failed.addAndGet(files.size());
+                    done.countDown();
+                }
+            });
+            done.await();
+        } else {
+            CountDownLatch done = new CountDownLatch(files.size());
+            for (CollectionUpload.Entry entry : files) {
+                transfers.upload(entry.source, new IPFSTransfers.Callback<String>() {
+                    @Override
+                    public void onComplete(String cid) {
+                        synchronized (manifest) {
+                            manifest.put(entry.path, cid);
+                        }
+                        succeeded.incrementAndGet();
+                        bytes.addAndGet(Math.max(0, entry.size));
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailed(Exception error) {
+                        System.err.println(entry.path + ": " + error.getMessage());
+                        failed.incrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        for (Map.Entry<String, String> line : manifest.entrySet()) {
+            System.out.println(line.getValue() + "\t" + line.getKey());
+        }
+        summarize("upload", start);
+        transfers.shutdown();
+        return failed.get() == 0;
+    }
+
+    boolean download(File manifestFile, File root) throws Exception {
+        Map<String, String> wanted = new TreeMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifestFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (line.isEmpty() || line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+                wanted.put(line.substring(separator + 1), line.substring(0, separator));
+            }
+        }
+        String rootPath = root.getCanonicalPath() + File.separator;
+        IPFSTransfers transfers = open();
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(wanted.size());
+        for (Map.Entry<String, String> entry : wanted.entrySet()) {
+            File target = new File(root, entry.getKey());
+            File parent = target.getParentFile();
+            if (!target.getCanonicalPath().startsWith(rootPath) || !parent.isDirectory() && !parent.mkdirs()) {
+                System.err.println(entry.getKey() + ": invalid target path");
+                failed.incrementAndGet();
+                done.countDown();
+                continue;
+            }
+            transfers.download(entry.getValue(), DownloadTarget.forFile(target), new IPFSTransfers.Callback<Void>() {
+                @Override
+                public void onComplete(Void result) {
+                    succeeded.incrementAndGet();
+                    bytes.addAndGet(target.length());
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(Exception error) {
+                    System.err.println(entry.getKey() + ": " + error.getMessage());
+                    failed.incrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        summarize("download", start);
+        transfers.shutdown();
+        return failed.get() == 0;
+    }
+
+    boolean scan(File root) throws Exception {
+        String apiKey = options.getOrDefault("vt-key", System.getenv("VT_API_KEY"));
+        if (apiKey != null) {
+            VirusTotalClient.setApiKey(apiKey);
+        }
+        if (options.containsKey("vt-rpm")) {
+            VirusTotalClient.setRequestsPerMinute(Integer.parseInt(options.get("vt-rpm")));
+        }
+        if (!stateDir.isDirectory() && !stateDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create state directory " + stateDir);
+        }
+        ScanVerdictCache verdicts = new ScanVerdictCache(new File(stateDir, "scan-verdicts.log"),
+                ScanVerdictCache.DEFAULT_TTL_MILLIS);
+        ExecutorService workers = Executors.newFixedThreadPool(parallel);
+        long start = System.nanoTime();
+        Map<String, String> results = new TreeMap<>();
+        for (CollectionUpload.Entry entry : CollectionUpload.fromDirectory(root)) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            workers.execute(() -> {
+                VirusTotalClient.ScanResult result = VirusTotalClient.scan(entry.source, null, verdicts);
+                String verdict;
+                if (result.isError) {
+                    verdict = "error: " + result.errorMessage;
+                    failed.incrementAndGet();
+                } else if (result.isInfected()) {
+                    verdict = String.format(Locale.US, "infected (%d malicious, %d suspicious)",
+                            result.maliciousCount, result.suspiciousCount);
+                    failed.incrementAndGet();
+                } else {
+                    verdict = "clean";
+                    succeeded.incrementAndGet();
+                }
+                bytes.addAndGet(Math.max(0, entry.size));
+                synchronized (results) {
+                    results.put(entry.path, verdict);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        for (Map.Entry<String, String> line : results.entrySet()) {
+            System.out.println(line.getValue() + "\t" + line.getKey());
+        }
+        summarize("scan", start);
+        return failed.get() == 0;
+    }
+
+    private void summarize(String command, long startNanos) throws IOException {
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        System.err.printf(Locale.US, "%s: %d ok, %d failed, %s in %s (%s/s, %.1f files/s)%n", command,
+                succeeded.get(), failed.get(), TransferProgress.formatBytes(bytes.get()),
+                TransferProgress.formatDuration(millis), TransferProgress.formatBytes(bytes.get() * 1000 / millis),
+                succeeded.get() * 1000.0 / millis);
+        if (options.containsKey("metrics")) {
+            TransferMetrics.shared().dump(new File(options.get("metrics")));
+        }
+    }
+}
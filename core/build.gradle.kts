@@ -0,0 +1,17 @@
+plugins {
+    `java-library`
+    `java-test-fixtures`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    api(libs.okhttp)
+    compileOnly(libs.org.json)
+    testImplementation(libs.junit)
+    testImplementation(libs.org.json)
+    testFixturesImplementation(libs.org.json)
+}
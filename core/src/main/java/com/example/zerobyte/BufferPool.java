@@ -0,0 +1,87 @@
+package com.example.zerobyte;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BufferPool {
+    static final int[] TIER_SIZES = {16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024};
+    private static final int MAX_POOLED_PER_TIER = 8;
+    private static final BufferPool SHARED = new BufferPool();
+
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> tiers;
+    private final AtomicInteger[] pooledCounts;
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+
+    public BufferPool() {
+        tiers = new ArrayList<>(TIER_SIZES.length);
+        pooledCounts = new AtomicInteger[TIER_SIZES.length];
+        for (int i = 0; i < TIER_SIZES.length; i++) {
+            tiers.add(new ConcurrentLinkedQueue<>());
+            pooledCounts[i] = new AtomicInteger();
+        }
+    }
+
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    public static class Stats {
+        public final long allocations;
+        public final long reuses;
+        public final long pooledBytes;
+
+        Stats(long allocations, long reuses, long pooledBytes) {
+            this.allocations = allocations;
+            this.reuses = reuses;
+            this.pooledBytes = pooledBytes;
+        }
+    }
+
+    public ByteBuffer acquire(int minSize) {
+        int tier = tierFor(minSize);
+        ByteBuffer buffer = tiers.get(tier).poll();
+        if (buffer == null) {
+            allocations.incrementAndGet();
+            return ByteBuffer.allocateDirect(TIER_SIZES[tier]);
+        }
+        pooledCounts[tier].decrementAndGet();
+        reuses.incrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        int tier = tierFor(buffer.capacity());
+        if (TIER_SIZES[tier] != buffer.capacity()) {
+            return;
+        }
+        if (pooledCounts[tier].incrementAndGet() > MAX_POOLED_PER_TIER) {
+            pooledCounts[tier].decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        tiers.get(tier).offer(buffer);
+    }
+
+    public Stats stats() {
+        long pooledBytes = 0;
+        for (int i = 0; i < TIER_SIZES.length; i++) {
+            pooledBytes += (long) pooledCounts[i].get() * TIER_SIZES[i];
+        }
+        return new Stats(allocations.get(), reuses.get(), pooledBytes);
+    }
+
+    static int tierFor(int size) {
+        for (int i = 0; i < TIER_SIZES.length; i++) {
+            if (size <= TIER_SIZES[i]) {
+                return i;
+            }
+        }
+        return TIER_SIZES.length - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.zerobyte;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+public class BufferedTransfer implements Closeable {
+    private static final long TARGET_FILL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final double ALPHA = 0.3;
+
+    private final BufferPool pool;
+    private ByteBuffer buffer;
+    private int nextSize = BufferPool.TIER_SIZES[0];
+    private double bytesPerNano;
+    private long transferred;
+
+    public BufferedTransfer(BufferPool pool) {
+        this.pool = pool;
+        this.buffer = pool.acquire(BufferPool.TIER_SIZES[0]);
+    }
+
+    public ByteBuffer fill(ReadableByteChannel source) throws IOException {
+        if (nextSize != buffer.capacity()) {
+            pool.release(buffer);
+            buffer = pool.acquire(nextSize);
+        }
+        buffer.clear();
+        long start = System.nanoTime();
+        int read;
+        do {
+            read = source.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        adapt(buffer.remaining(), System.nanoTime() - start);
+        transferred += buffer.remaining();
+        return buffer;
+    }
+
+    public long copy(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        long copied = 0;
+        ByteBuffer chunk;
+        while ((chunk = fill(source)) != null) {
+            copied += chunk.remaining();
+            while (chunk.hasRemaining()) {
+                target.write(chunk);
+            }
+        }
+        return copied;
+    }
+
+    public long transferred() {
+        return transferred;
+    }
+
+    public int bufferSize() {
+        return buffer.capacity();
+    }
+
+    private void adapt(int bytes, long nanos) {
+        double rate = (double) bytes / Math.max(1, nanos);
+        bytesPerNano = bytesPerNano == 0 ? rate : ALPHA * rate + (1 - ALPHA) * bytesPerNano;
+        nextSize = BufferPool.TIER_SIZES[BufferPool.tierFor((int) Math.min(Integer.MAX_VALUE,
+                bytesPerNano * TARGET_FILL_NANOS))];
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+}
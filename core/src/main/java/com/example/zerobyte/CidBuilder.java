@@ -0,0 +1,135 @@
+package com.example.zerobyte;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CidBuilder {
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    public static final int MAX_LINKS = 174;
+
+    private final byte[] chunk;
+    private final boolean rawLeaves;
+    private final int cidVersion;
+    private int chunkLength;
+    private final List<List<Child>> levels = new ArrayList<>();
+    private long totalBytes;
+
+    public CidBuilder() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public CidBuilder(int chunkSize) {
+        this(chunkSize, false, 0);
+    }
+
+    public CidBuilder(UploadProfile profile) {
+        this(profile.fixedChunkSize(), profile.rawLeaves, profile.cidVersion);
+        if (!profile.isLocallyComputable()) {
+            throw new IllegalArgumentException("Profile " + profile.name + " cannot be computed locally");
+        }
+    }
+
+    public CidBuilder(int chunkSize, boolean rawLeaves, int cidVersion) {
+        this.chunk = new byte[chunkSize];
+        this.rawLeaves = rawLeaves;
+        this.cidVersion = cidVersion;
+    }
+
+    private static class Child {
+        final byte[] cid;
+        final long fileSize;
+        final long tsize;
+
+        Child(byte[] cid, long fileSize, long tsize) {
+            this.cid = cid;
+            this.fileSize = fileSize;
+            this.tsize = tsize;
+        }
+    }
+
+    public void update(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            if (chunkLength == chunk.length) {
+                flushChunk();
+            }
+            int length = Math.min(data.remaining(), chunk.length - chunkLength);
+            data.get(chunk, chunkLength, length);
+            chunkLength += length;
+            totalBytes += length;
+        }
+    }
+
+    public void update(byte[] data, int offset, int length) {
+        update(ByteBuffer.wrap(data, offset, length));
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public String finish() {
+        if (chunkLength > 0 || (levels.isEmpty())) {
+            flushChunk();
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            List<Child> children = levels.get(level);
+            boolean top = level == levels.size() - 1;
+            if (top && children.size() == 1) {
+                return CidCodec.toCidString(children.get(0).cid);
+            }
+            if (!children.isEmpty()) {
+                addChild(level + 1, buildNode(children));
+                children.clear();
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private void flushChunk() {
+        byte[] content = new byte[chunkLength];
+        System.arraycopy(chunk, 0, content, 0, chunkLength);
+        chunkLength = 0;
+        if (rawLeaves) {
+            byte[] cid = CidCodec.cidV1(CidCodec.CODEC_RAW, CidCodec.sha256Multihash(CidCodec.sha256(content)));
+            addChild(0, new Child(cid, content.length, content.length));
+            return;
+        }
+        byte[] node = DagPb.encodeNode(new ArrayList<>(), DagPb.unixFsFile(content, content.length, new long[0]));
+        addChild(0, new Child(dagPbCid(node), content.length, node.length));
+    }
+
+    private byte[] dagPbCid(byte[] node) {
+        byte[] multihash = CidCodec.sha256Multihash(CidCodec.sha256(node));
+        return cidVersion == 0 ? multihash : CidCodec.cidV1(CidCodec.CODEC_DAG_PB, multihash);
+    }
+
+    private void addChild(int level, Child child) {
+        while (levels.size() <= level) {
+            levels.add(new ArrayList<>());
+        }
+        List<Child> children = levels.get(level);
+        children.add(child);
+        if (children.size() == MAX_LINKS) {
+            Child parent = buildNode(children);
+            children.clear();
+            addChild(level + 1, parent);
+        }
+    }
+
+    private Child buildNode(List<Child> children) {
+        List<DagPb.Link> links = new ArrayList<>(children.size());
+        long[] blockSizes = new long[children.size()];
+        long fileSize = 0;
+        long tsize = 0;
+        for (int i = 0; i < children.size(); i++) {
+            Child child = children.get(i);
+            links.add(new DagPb.Link(child.cid, "", child.tsize));
+            blockSizes[i] = child.fileSize;
+            fileSize += child.fileSize;
+            tsize += child.tsize;
+        }
+        byte[] node = DagPb.encodeNode(links, DagPb.unixFsFile(null, fileSize, blockSizes));
+        return new Child(dagPbCid(node), fileSize, tsize + node.length);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.zerobyte;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class CidCodec {
+    private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final BigInteger FIFTY_EIGHT = BigInteger.valueOf(58);
+    private static final String BASE32_ALPHABET = "abcdefghijklmnopqrstuvwxyz234567";
+    private static final int SHA2_256 = 0x12;
+    public static final int CODEC_DAG_PB = 0x70;
+    public static final int CODEC_RAW = 0x55;
+
+    private CidCodec() {
+    }
+
+    public static String cidV0(byte[] dagPbNode) {
+        return toBase58(sha256Multihash(sha256(dagPbNode)));
+    }
+
+    public static byte[] cidV1(int codec, byte[] multihash) {
+        byte[] cid = new byte[2 + multihash.length];
+        cid[0] = 1;
+        cid[1] = (byte) codec;
+        System.arraycopy(multihash, 0, cid, 2, multihash.length);
+        return cid;
+    }
+
+    public static byte[] multihash(String cid) {
+        return multihashOf(cidBytes(cid));
+    }
+
+    public static byte[] cidBytes(String cid) {
+        if (cid.startsWith("Qm") && cid.length() == 46) {
+            return fromBase58(cid);
+        }
+        if (cid.startsWith("b") && cid.length() > 1) {
+            byte[] bytes = fromBase32(cid.substring(1));
+            if (bytes.length > 2 && bytes[0] == 1) {
+                return bytes;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported CID: " + cid);
+    }
+
+    public static boolean isCidV0(byte[] cid) {
+        return cid.length == 34 && cid[0] == SHA2_256 && cid[1] == 32;
+    }
+
+    public static int codec(byte[] cid) {
+        if (isCidV0(cid)) {
+            return CODEC_DAG_PB;
+        }
+        int[] position = {1};
+        return (int) readVarint(cid, position);
+    }
+
+    public static byte[] multihashOf(byte[] cid) {
+        if (isCidV0(cid)) {
+            return cid;
+        }
+        int[] position = {1};
+        readVarint(cid, position);
+        byte[] multihash = new byte[cid.length - position[0]];
+        System.arraycopy(cid, position[0], multihash, 0, multihash.length);
+        return multihash;
+    }
+
+    public static String toCidString(byte[] cid) {
+        return isCidV0(cid) ? toBase58(cid) : "b" + toBase32(cid);
+    }
+
+    public static boolean isSha256(byte[] multihash) {
+        return multihash.length == 34 && multihash[0] == SHA2_256 && multihash[1] == 32;
+    }
+
+    public static boolean matches(byte[] multihash, byte[] block) {
+        if (!isSha256(multihash)) {
+            return false;
+        }
+        byte[] digest = sha256(block);
+        for (int i = 0; i < digest.length; i++) {
+            if (digest[i] != multihash[i + 2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String toBase32(byte[] data) {
+        StringBuilder result = new StringBuilder((data.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : data) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                result.append(BASE32_ALPHABET.charAt((buffer >> (bits - 5)) & 0x1F));
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            result.append(BASE32_ALPHABET.charAt((buffer << (5 - bits)) & 0x1F));
+        }
+        return result.toString();
+    }
+
+    public static byte[] fromBase32(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE32_ALPHABET.indexOf(Character.toLowerCase(text.charAt(i)));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid base32 character: " + text.charAt(i));
+            }
+            buffer = (buffer << 5) | digit;
+            bits += 5;
+            if (bits >= 8) {
+                out.write((buffer >> (bits - 8)) & 0xFF);
+                bits -= 8;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; position[0] < data.length && shift < 64; shift += 7) {
+            int b = data[position[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Truncated varint");
+    }
+
+    public static byte[] sha256Multihash(byte[] digest) {
+        byte[] multihash = new byte[digest.length + 2];
+        multihash[0] = SHA2_256;
+        multihash[1] = (byte) digest.length;
+        System.arraycopy(digest, 0, multihash, 2, digest.length);
+        return multihash;
+    }
+
+    public static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toBase58(byte[] data) {
+        StringBuilder result = new StringBuilder();
+        BigInteger value = new BigInteger(1, data);
+        while (value.signum() > 0) {
+            BigInteger[] divRem = value.divideAndRemainder(FIFTY_EIGHT);
+            result.append(BASE58_ALPHABET.charAt(divRem[1].intValue()));
+            value = divRem[0];
+        }
+        for (int i = 0; i < data.length && data[i] == 0; i++) {
+            result.append(BASE58_ALPHABET.charAt(0));
+        }
+        return result.reverse().toString();
+    }
+
+    public static byte[] fromBase58(String text) {
+        BigInteger value = BigInteger.ZERO;
+        int leadingZeros = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = BASE58_ALPHABET.indexOf(text.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid base58 character: " + text.charAt(i));
+            }
+            if (value.signum() == 0 && digit == 0) {
+                leadingZeros++;
+            }
+            value = value.multiply(FIFTY_EIGHT).add(BigInteger.valueOf(digit));
+        }
+        byte[] magnitude = value.toByteArray();
+        int start = magnitude.length > 1 && magnitude[0] == 0 ? 1 : 0;
+        if (value.signum() == 0) {
+            start = magnitude.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[leadingZeros], 0, leadingZeros);
+        out.write(magnitude, start, magnitude.length - start);
+        return out.toByteArray();
+    }
+
+    public static String toHex(byte[] data) {
+        StringBuilder hex = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.zerobyte;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okio.BufferedSource;
+
+public class CidFetcher {
+    private static final int WINDOW_SIZE = 512;
+    private static final int MIN_SAMPLES = 20;
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 300;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 20;
+
+    private final IPFSNodeRouter router;
+    private final ExecutorService executor;
+    private final TransferScheduler scheduler;
+    private final long[] ttfbWindow = new long[WINDOW_SIZE];
+    private int ttfbCount;
+    private volatile boolean hedging;
+    private volatile double hedgePercentile = 0.95;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong cancelledAttempts = new AtomicLong();
+    private final AtomicInteger inFlightDuplicates = new AtomicInteger();
+
+    public CidFetcher(IPFSNodeRouter router, ExecutorService executor, TransferScheduler scheduler) {
+        this.router = router;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    public static class Fetch implements Closeable {
+        public final IPFSClient node;
+        public final BufferedSource source;
+        private final Attempt attempt;
+
+        Fetch(Attempt attempt) {
+            this.node = attempt.node;
+            this.source = attempt.source;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                attempt.releaseSlot();
+            }
+        }
+    }
+
+    public static class HedgeStats {
+        public final long requests;
+        public final long hedgesFired;
+        public final long hedgeWins;
+        public final long cancelledAttempts;
+        public final int inFlightDuplicates;
+        public final long hedgeDelayMillis;
+        public final long ttfbP50Millis;
+        public final long ttfbP99Millis;
+
+        HedgeStats(long requests, long hedgesFired, long hedgeWins, long cancelledAttempts, int inFlightDuplicates,
+                   long hedgeDelayMillis, long ttfbP50Millis, long ttfbP99Millis) {
+            this.requests = requests;
+            this.hedgesFired = hedgesFired;
+            this.hedgeWins = hedgeWins;
+            this.cancelledAttempts = cancelledAttempts;
+            this.inFlightDuplicates = inFlightDuplicates;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            this.ttfbP50Millis = ttfbP50Millis;
+            this.ttfbP99Millis = ttfbP99Millis;
+        }
+    }
+
+    private class Attempt {
+        final IPFSClient node;
+        final Call call;
+        final boolean holdsSlot;
+        BufferedSource source;
+        IOException error;
+        boolean cancelled;
+        boolean slotReleased;
+
+        Attempt(IPFSClient node, Call call, boolean holdsSlot) {
+            this.node = node;
+            this.call = call;
+            this.holdsSlot = holdsSlot;
+        }
+
+        void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                call.cancel();
+                closeQuietly(source);
+            }
+            cancelledAttempts.incrementAndGet();
+            releaseSlot();
+        }
+
+        void releaseSlot() {
+            synchronized (this) {
+                if (!holdsSlot || slotReleased) {
+                    return;
+                }
+                slotReleased = true;
+            }
+            scheduler.releaseHedgeSlot(node);
+        }
+    }
+
+    public int nodeCount() {
+        return router.nodes().size();
+    }
+
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public Fetch open(String cid, long offset, long length, Set<IPFSClient> tried) throws IOException {
+        return open(cid, offset, length, tried, null);
+    }
+
+    public Fetch open(String cid, long offset, long length, Set<IPFSClient> tried, TransferHandle handle)
+            throws IOException {
+        requests.incrementAndGet();
+        long requestStart = System.nanoTime();
+        BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Attempt> running = new ArrayList<>();
+        Attempt primary = start(router.select(tried, handle), false, cid, offset, length, tried, finished);
+        if (primary == null) {
+            throw new IOException("No IPFS node available");
+        }
+        running.add(primary);
+        boolean mayHedge = hedging;
+        boolean hedged = false;
+        IOException lastError = null;
+        try {
+            while (!running.isEmpty()) {
+                Attempt attempt;
+                if (mayHedge && !hedged) {
+                    attempt = finished.poll(hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+                    if (attempt == null) {
+                        Attempt hedge = start(selectHedge(tried), true, cid, offset, length, tried, finished);
+                        if (hedge == null) {
+                            mayHedge = false;
+                        } else {
+                            hedged = true;
+                            running.add(hedge);
+                            hedgesFired.incrementAndGet();
+                            inFlightDuplicates.incrementAndGet();
+                        }
+                        continue;
+                    }
+                } else {
+                    attempt = finished.take();
+                }
+                running.remove(attempt);
+                if (attempt.source != null) {
+                    for (Attempt loser : running) {
+                        loser.cancel();
+                    }
+                    recordTtfb(IPFSNodeRouter.elapsedMillis(requestStart));
+                    TransferMetrics.shared().recordSince(TransferMetrics.DOWNLOAD_TTFB, requestStart);
+                    if (attempt != primary) {
+                        hedgeWins.incrementAndGet();
+                    }
+                    return new Fetch(attempt);
+                }
+                lastError = attempt.error;
+                Attempt replacement = start(router.select(tried, handle), false, cid, offset, length, tried,
+                        finished);
+                if (replacement != null) {
+                    TransferMetrics.shared().increment(TransferMetrics.NODE_RETRIES);
+                    running.add(replacement);
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Attempt attempt : running) {
+                attempt.cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        } finally {
+            if (hedged) {
+                inFlightDuplicates.decrementAndGet();
+            }
+        }
+        throw lastError != null ? lastError : new IOException("No IPFS node available");
+    }
+
+    private IPFSClient selectHedge(Set<IPFSClient> tried) {
+        Set<IPFSClient> excluded = new HashSet<>(tried);
+        for (IPFSClient node : router.nodes()) {
+            if (!scheduler.hasFreeSlot(node)) {
+                excluded.add(node);
+            }
+        }
+        IPFSClient node = router.selectAvailable(excluded);
+        if (node != null && !scheduler.tryAcquireHedgeSlot(node)) {
+            node.stats().releaseTrial();
+            return null;
+        }
+        return node;
+    }
+
+    private Attempt start(IPFSClient node, boolean holdsSlot, String cid, long offset, long length,
+                          Set<IPFSClient> tried, BlockingQueue<Attempt> finished) {
+        if (node == null) {
+            return null;
+        }
+        tried.add(node);
+        Attempt attempt = new Attempt(node, node.api().catCall(cid, offset, length), holdsSlot);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            BufferedSource source = null;
+            IOException error = null;
+            try {
+                source = node.api().openCat(attempt.call);
+                source.request(1);
+                node.stats().recordSuccess(IPFSNodeRouter.elapsedMillis(start));
+            } catch (IPFSHttpAPI.ApiException e) {
+                error = e;
+                if (e.isServerError()) {
+                    node.stats().recordFailure(IPFSNodeRouter.elapsedMillis(start));
+                } else {
+                    node.stats().recordSuccess(IPFSNodeRouter.elapsedMillis(start));
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(source);
+                source = null;
+                error = e instanceof IOException ? (IOException) e : new IOException(e);
+                if (attempt.call.isCanceled()) {
+                    node.stats().releaseTrial();
+                } else {
+                    node.stats().recordFailure(IPFSNodeRouter.elapsedMillis(start));
+                }
+            }
+            synchronized (attempt) {
+                attempt.source = source;
+                attempt.error = error;
+                if (attempt.cancelled) {
+                    closeQuietly(source);
+                    return;
+                }
+            }
+            if (error != null) {
+                attempt.releaseSlot();
+            }
+            finished.add(attempt);
+        });
+        return attempt;
+    }
+
+    private synchronized void recordTtfb(long millis) {
+        ttfbWindow[ttfbCount % WINDOW_SIZE] = millis;
+        ttfbCount++;
+    }
+
+    private synchronized long percentile(double percentile) {
+        int count = Math.min(ttfbCount, WINDOW_SIZE);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(ttfbWindow, count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.floor(percentile * count))];
+    }
+
+    public synchronized long hedgeDelayMillis() {
+        if (ttfbCount < MIN_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MILLIS;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, percentile(hedgePercentile));
+    }
+
+    public HedgeStats stats() {
+        return new HedgeStats(requests.get(), hedgesFired.get(), hedgeWins.get(), cancelledAttempts.get(),
+                inFlightDuplicates.get(),
+                hedgeDelayMillis(), percentile(0.5), percentile(0.99));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+public class CollectionUpload {
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+    private static final int SMALL_FILE_LIMIT = 256 * 1024;
+    private static final int DEFAULT_CONCURRENCY = 8;
+    private static final long MAX_TRANSFER_BYTES = 1024 * 1024;
+
+    private final ExecutorService executor;
+    private final List<Entry> entries;
+    private final int concurrency;
+
+    public CollectionUpload(ExecutorService executor, List<Entry> entries) {
+        this(executor, entries, DEFAULT_CONCURRENCY);
+    }
+
+    public CollectionUpload(ExecutorService executor, List<Entry> entries, int concurrency) {
+        this.executor = executor;
+        this.entries = entries;
+        this.concurrency = concurrency;
+    }
+
+    public static class Entry {
+        public final String path;
+        public final TransferSource source;
+        public final long size;
+
+        public Entry(String path, TransferSource source, long size) {
+            this.path = path;
+            this.source = source;
+            this.size = size;
+        }
+
+        public boolean isDirectory() {
+            return source == null;
+        }
+    }
+
+    public static class Result {
+        public final String rootCid;
+        public final Map<String, String> fileCids;
+
+        Result(String rootCid, Map<String, String> fileCids) {
+            this.rootCid = rootCid;
+            this.fileCids = fileCids;
+        }
+    }
+
+    private static class Opened implements Closeable {
+        final byte[] content;
+        final InputStream stream;
+
+        Opened(byte[] content, InputStream stream) {
+            this.content = content;
+            this.stream = stream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    public static List<Entry> fromFiles(List<File> files) {
+        List<Entry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (File file : files) {
+            entries.add(new Entry(uniqueName(names, file.getName()), TransferSource.forFile(file), file.length()));
+        }
+        return entries;
+    }
+
+    public static List<Entry> fromDirectory(File root) throws IOException {
+        if (!root.isDirectory()) {
+            throw new FileNotFoundException(root + " is not a directory");
+        }
+        List<Entry> entries = new ArrayList<>();
+        Deque<File> pending = new ArrayDeque<>();
+        pending.add(root);
+        String rootPath = root.getAbsolutePath();
+        while (!pending.isEmpty()) {
+            File[] children = pending.poll().listFiles();
+            if (children == null) {
+                continue;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                String path = child.getAbsolutePath().substring(rootPath.length() + 1).replace(File.separatorChar, '/');
+                if (child.isDirectory()) {
+                    entries.add(new Entry(path, null, 0));
+                    pending.add(child);
+                } else if (child.isFile()) {
+                    entries.add(new Entry(path, TransferSource.forFile(child), child.length()));
+                }
+            }
+        }
+        entries.sort((a, b) -> comparePaths(a.path, b.path));
+        return entries;
+    }
+
+    public static int comparePaths(String a, String b) {
+        String[] left = a.split("/");
+        String[] right = b.split("/");
+        for (int i = 0; i < Math.min(left.length, right.length); i++) {
+            int compared = left[i].compareTo(right[i]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(left.length, right.length);
+    }
+
+    public static String uniqueName(Set<String> names, String name) {
+        String base = name == null || name.isEmpty() ? "file" : name.replace('/', '_');
+        String unique = base;
+        for (int i = 1; !names.add(unique); i++) {
+            unique = base + " (" + i + ")";
+        }
+        return unique;
+    }
+
+    public long totalSize() {
+        long total = 0;
+        for (Entry entry : entries) {
+            if (entry.size > 0) {
+                total += entry.size;
+            }
+        }
+        return total;
+    }
+
+    public Result upload(IPFSHttpAPI api, UploadProfile profile) throws IOException, JSONException {
+        return upload(api, profile, null);
+    }
+
+    public Result upload(IPFSHttpAPI api, UploadProfile profile, TransferProgress progress)
+            throws IOException, JSONException {
+        if (progress != null) {
+            progress.setTotal(totalSize());
+            progress.set(0);
+        }
+        List<CompletableFuture<Opened>> opened = new ArrayList<>();
+        Map<String, RequestBody> parts = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            parts.put(entry.path, entry.isDirectory() ? null : new PrefetchedBody(opened, i, progress));
+        }
+        try {
+            Map<String, String> fileCids = new HashMap<>();
+            String rootCid = null;
+            for (IPFSHttpAPI.AddedFile added : api.addDirectory(parts, profile)) {
+                if (added.name.isEmpty()) {
+                    rootCid = added.hash;
+                } else {
+                    fileCids.put(added.name, added.hash);
+                }
+            }
+            if (rootCid == null) {
+                throw new IOException("Add returned no root directory");
+            }
+            return new Result(rootCid, fileCids);
+        } finally {
+            synchronized (opened) {
+                for (CompletableFuture<Opened> future : opened) {
+                    future.whenComplete((prefetched, error) -> closeQuietly(prefetched));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Opened> prefetch(List<CompletableFuture<Opened>> opened, int index) {
+        synchronized (opened) {
+            int limit = Math.min(entries.size(), index + concurrency);
+            while (opened.size() < limit) {
+                Entry entry = entries.get(opened.size());
+                opened.add(entry.isDirectory() ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.supplyAsync(() -> open(entry), executor));
+            }
+            return opened.get(index);
+        }
+    }
+
+    private Opened open(Entry entry) {
+        try {
+            InputStream stream = entry.source.open();
+            if (stream == null) {
+                throw new FileNotFoundException("Cannot open " + entry.path);
+            }
+            long size = stream instanceof FileInputStream ? regionSize(((FileInputStream) stream).getChannel())
+                    : entry.size;
+            if (size < 0 || size > SMALL_FILE_LIMIT) {
+                return new Opened(null, stream);
+            }
+            try (InputStream owned = stream) {
+                byte[] content = new byte[(int) size];
+                new DataInputStream(owned).readFully(content);
+                return new Opened(content, null);
+            } catch (EOFException e) {
+                throw new IOException(entry.path + " ended early", e);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long regionSize(FileChannel channel) throws IOException {
+        return channel.size() - channel.position();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private class PrefetchedBody extends RequestBody {
+        private final List<CompletableFuture<Opened>> opened;
+        private final int index;
+        private final TransferProgress progress;
+
+        PrefetchedBody(List<CompletableFuture<Opened>> opened, int index, TransferProgress progress) {
+            this.opened = opened;
+            this.index = index;
+            this.progress = progress;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Opened file;
+            try {
+                file = prefetch(opened, index).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload cancelled");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause()
+                        : e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            if (file.content != null) {
+                sink.write(file.content);
+                if (progress != null) {
+                    progress.add(file.content.length);
+                }
+                return;
+            }
+            try (Opened owned = file) {
+                if (!(owned.stream instanceof FileInputStream)) {
+                    writeStream(owned.stream, sink);
+                    return;
+                }
+                FileChannel channel = ((FileInputStream) owned.stream).getChannel();
+                long start = channel.position();
+                long size = channel.size() - start;
+                long written = 0;
+                while (written < size) {
+                    long transferred = channel.transferTo(start + written,
+                            Math.min(MAX_TRANSFER_BYTES, size - written), sink);
+                    if (transferred <= 0) {
+                        throw new IOException("Source ended at " + (start + written));
+                    }
+                    written += transferred;
+                    if (progress != null) {
+                        progress.add(transferred);
+                    }
+                }
+            }
+        }
+
+        private void writeStream(InputStream stream, BufferedSink sink) throws IOException {
+            Source source = Okio.source(stream);
+            Buffer buffer = new Buffer();
+            long read;
+            while ((read = source.read(buffer, MAX_TRANSFER_BYTES)) != -1) {
+                sink.write(buffer, read);
+                if (progress != null) {
+                    progress.add(read);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ContentCache {
+    private static final String TEMP_SUFFIX = ".part";
+    private static final String FORMAT_MARKER = ".verified-v2";
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final File directory;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long maxBytes;
+    private long currentBytes;
+    private boolean loaded;
+
+    public ContentCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long entries;
+        public final long bytes;
+        public final long maxBytes;
+
+        Stats(long hits, long misses, long evictions, long entries, long bytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        ensureLoaded();
+        evict();
+    }
+
+    public synchronized long maxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long sizeOf(String cid) {
+        ensureLoaded();
+        Long size = index.get(cid);
+        return size != null ? size : -1;
+    }
+
+    public boolean copyTo(String cid, FileChannel target) throws IOException {
+        File file;
+        synchronized (this) {
+            ensureLoaded();
+            if (index.get(cid) == null) {
+                misses.incrementAndGet();
+                return false;
+            }
+            file = fileFor(cid);
+            file.setLastModified(System.currentTimeMillis());
+        }
+        FileInputStream inputStream;
+        try {
+            inputStream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            synchronized (this) {
+                remove(cid);
+            }
+            misses.incrementAndGet();
+            return false;
+        }
+        try (FileChannel source = inputStream.getChannel()) {
+            long size = source.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += source.transferTo(copied, size - copied, target);
+            }
+            if (target.size() > size) {
+                target.truncate(size);
+            }
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public void put(String cid, FileChannel source, long size) throws IOException {
+        put(cid, source, size, false);
+    }
+
+    public void put(String cid, FileChannel source, long size, boolean verified) throws IOException {
+        if (size > maxBytes() / 2) {
+            return;
+        }
+        synchronized (this) {
+            ensureLoaded();
+            if (index.containsKey(cid)) {
+                return;
+            }
+        }
+        List<CidBuilder> builders = verified ? new ArrayList<>() : verifiers(cid);
+        if (!verified && builders.isEmpty()) {
+            return;
+        }
+        File tempFile = File.createTempFile(cid + ".", TEMP_SUFFIX, directory);
+        BufferPool pool = BufferPool.shared();
+        ByteBuffer buffer = pool.acquire(COPY_BUFFER_SIZE);
+        try (FileChannel target = new FileOutputStream(tempFile).getChannel()) {
+            long copied = 0;
+            while (copied < size) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - copied));
+                int read = source.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Source ended at " + copied);
+                }
+                buffer.flip();
+                for (CidBuilder builder : builders) {
+                    builder.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                copied += read;
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        } finally {
+            pool.release(buffer);
+        }
+        if (!verified && !matchesAny(cid, builders)) {
+            tempFile.delete();
+            return;
+        }
+        synchronized (this) {
+            if (index.containsKey(cid)) {
+                tempFile.delete();
+                return;
+            }
+            if (!tempFile.renameTo(fileFor(cid))) {
+                tempFile.delete();
+                throw new IOException("Cannot store " + cid);
+            }
+            index.put(cid, size);
+            currentBytes += size;
+            evict();
+        }
+    }
+
+    private static List<CidBuilder> verifiers(String cid) {
+        int version = cid.startsWith("Qm") ? 0 : 1;
+        List<CidBuilder> builders = new ArrayList<>();
+        for (UploadProfile profile : UploadProfile.all()) {
+            if (profile.cidVersion == version && profile.isLocallyComputable()) {
+                builders.add(new CidBuilder(profile));
+            }
+        }
+        return builders;
+    }
+
+    private static boolean matchesAny(String cid, List<CidBuilder> builders) {
+        for (CidBuilder builder : builders) {
+            if (builder.finish().equals(cid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized Stats stats() {
+        ensureLoaded();
+        return new Stats(hits.get(), misses.get(), evictions.get(), index.size(), currentBytes, maxBytes);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        File marker = new File(directory, FORMAT_MARKER);
+        boolean current = marker.exists();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.equals(marker)) {
+                continue;
+            }
+            if (!current || file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+            } else {
+                index.put(file.getName(), file.length());
+                currentBytes += file.length();
+            }
+        }
+        if (!current) {
+            try {
+                marker.createNewFile();
+            } catch (IOException ignored) {
+            }
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> entries = index.entrySet().iterator();
+        while (currentBytes > maxBytes && entries.hasNext()) {
+            Map.Entry<String, Long> eldest = entries.next();
+            fileFor(eldest.getKey()).delete();
+            currentBytes -= eldest.getValue();
+            entries.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String cid) {
+        Long size = index.remove(cid);
+        if (size != null) {
+            currentBytes -= size;
+            fileFor(cid).delete();
+        }
+    }
+
+    private File fileFor(String cid) {
+        return new File(directory, cid);
+    }
+}
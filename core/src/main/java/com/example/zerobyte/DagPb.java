@@ -0,0 +1,235 @@
+package com.example.zerobyte;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class DagPb {
+    public static final int UNIXFS_RAW = 0;
+    public static final int UNIXFS_DIRECTORY = 1;
+    public static final int UNIXFS_FILE = 2;
+
+    private DagPb() {
+    }
+
+    public static class Link {
+        public final byte[] hash;
+        public final String name;
+        public final long tsize;
+
+        public Link(byte[] hash, String name, long tsize) {
+            this.hash = hash;
+            this.name = name;
+            this.tsize = tsize;
+        }
+    }
+
+    public static class Node {
+        public final List<Link> links;
+        public final byte[] data;
+
+        Node(List<Link> links, byte[] data) {
+            this.links = links;
+            this.data = data;
+        }
+    }
+
+    public static class UnixFsData {
+        public final int type;
+        public final byte[] content;
+        public final long fileSize;
+
+        UnixFsData(int type, byte[] content, long fileSize) {
+            this.type = type;
+            this.content = content;
+            this.fileSize = fileSize;
+        }
+    }
+
+    public static byte[] encodeNode(List<Link> links, byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Link link : links) {
+            ByteArrayOutputStream encodedLink = new ByteArrayOutputStream();
+            writeBytes(encodedLink, 1, link.hash);
+            writeBytes(encodedLink, 2, link.name.getBytes(StandardCharsets.UTF_8));
+            writeVarintField(encodedLink, 3, link.tsize);
+            writeBytes(out, 2, encodedLink.toByteArray());
+        }
+        if (data != null) {
+            writeBytes(out, 1, data);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] unixFsFile(byte[] content, long fileSize, long[] blockSizes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarintField(out, 1, UNIXFS_FILE);
+        if (content != null && content.length > 0) {
+            writeBytes(out, 2, content);
+        }
+        writeVarintField(out, 3, fileSize);
+        for (long blockSize : blockSizes) {
+            writeVarintField(out, 4, blockSize);
+        }
+        return out.toByteArray();
+    }
+
+    public static Node decodeNode(byte[] block) throws IOException {
+        List<Link> links = new ArrayList<>();
+        byte[] data = null;
+        Reader reader = new Reader(block, 0, block.length);
+        while (reader.hasMore()) {
+            int tag = (int) reader.varint();
+            if (tag == ((2 << 3) | 2)) {
+                links.add(decodeLink(reader.bytesReader()));
+            } else if (tag == ((1 << 3) | 2)) {
+                data = reader.bytes();
+            } else {
+                reader.skip(tag);
+            }
+        }
+        return new Node(links, data);
+    }
+
+    public static UnixFsData decodeUnixFs(byte[] data) throws IOException {
+        int type = -1;
+        byte[] content = new byte[0];
+        long fileSize = -1;
+        Reader reader = new Reader(data, 0, data.length);
+        while (reader.hasMore()) {
+            int tag = (int) reader.varint();
+            if (tag == (1 << 3)) {
+                type = (int) reader.varint();
+            } else if (tag == ((2 << 3) | 2)) {
+                content = reader.bytes();
+            } else if (tag == (3 << 3)) {
+                fileSize = reader.varint();
+            } else {
+                reader.skip(tag);
+            }
+        }
+        if (type < 0) {
+            throw new IOException("UnixFS node without type");
+        }
+        return new UnixFsData(type, content, fileSize);
+    }
+
+    private static Link decodeLink(Reader reader) throws IOException {
+        byte[] hash = null;
+        String name = "";
+        long tsize = 0;
+        while (reader.hasMore()) {
+            int tag = (int) reader.varint();
+            if (tag == ((1 << 3) | 2)) {
+                hash = reader.bytes();
+            } else if (tag == ((2 << 3) | 2)) {
+                name = new String(reader.bytes(), StandardCharsets.UTF_8);
+            } else if (tag == (3 << 3)) {
+                tsize = reader.varint();
+            } else {
+                reader.skip(tag);
+            }
+        }
+        if (hash == null) {
+            throw new IOException("dag-pb link without hash");
+        }
+        return new Link(hash, name, tsize);
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+        private final int end;
+
+        Reader(byte[] buffer, int position, int end) {
+            this.buffer = buffer;
+            this.position = position;
+            this.end = end;
+        }
+
+        boolean hasMore() {
+            return position < end;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= end) {
+                    throw new IOException("Truncated varint");
+                }
+                int b = buffer[position++] & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint too long");
+        }
+
+        Reader bytesReader() throws IOException {
+            int length = length();
+            Reader nested = new Reader(buffer, position, position + length);
+            position += length;
+            return nested;
+        }
+
+        byte[] bytes() throws IOException {
+            int length = length();
+            byte[] value = new byte[length];
+            System.arraycopy(buffer, position, value, 0, length);
+            position += length;
+            return value;
+        }
+
+        void skip(int tag) throws IOException {
+            switch (tag & 7) {
+                case 0:
+                    varint();
+                    break;
+                case 1:
+                    position += 8;
+                    break;
+                case 2:
+                    position += length();
+                    break;
+                case 5:
+                    position += 4;
+                    break;
+                default:
+                    throw new IOException("Unsupported protobuf wire type " + (tag & 7));
+            }
+            if (position > end) {
+                throw new IOException("Truncated protobuf field");
+            }
+        }
+
+        private int length() throws IOException {
+            long length = varint();
+            if (length < 0 || length > end - position) {
+                throw new IOException("Truncated protobuf field");
+            }
+            return (int) length;
+        }
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] value) {
+        writeVarint(out, (field << 3) | 2);
+        writeVarint(out, value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private static void writeVarintField(ByteArrayOutputStream out, int field, long value) {
+        writeVarint(out, field << 3);
+        writeVarint(out, value);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
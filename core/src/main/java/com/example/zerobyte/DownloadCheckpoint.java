@@ -0,0 +1,136 @@
+package com.example.zerobyte;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class DownloadCheckpoint {
+    private static final long SAVE_INTERVAL_BYTES = 1024 * 1024;
+
+    public final String cid;
+    public final long totalSize;
+    public final long segmentSize;
+    private final AtomicLongArray committed;
+    private final TransferCheckpointStore store;
+    private final String key;
+    private final boolean resumed;
+    private long unsavedBytes;
+
+    private DownloadCheckpoint(TransferCheckpointStore store, String key, String cid, long totalSize,
+                               long segmentSize, long[] committed, boolean resumed) {
+        this.store = store;
+        this.key = key;
+        this.cid = cid;
+        this.totalSize = totalSize;
+        this.segmentSize = segmentSize;
+        this.committed = new AtomicLongArray(committed);
+        this.resumed = resumed;
+    }
+
+    public static DownloadCheckpoint open(TransferCheckpointStore store, String destination, String cid,
+                                          long totalSize, long segmentSize) {
+        String key = "download:" + cid + ":" + destination;
+        JSONObject saved = store.load(key);
+        if (saved != null) {
+            try {
+                if (saved.getLong("totalSize") == totalSize) {
+                    long savedSegmentSize = saved.getLong("segmentSize");
+                    JSONArray savedCommitted = saved.getJSONArray("committed");
+                    long[] committed = new long[savedCommitted.length()];
+                    for (int i = 0; i < committed.length; i++) {
+                        committed[i] = savedCommitted.getLong(i);
+                    }
+                    if (committed.length == segmentCount(totalSize, savedSegmentSize)) {
+                        return new DownloadCheckpoint(store, key, cid, totalSize, savedSegmentSize,
+                                committed, true);
+                    }
+                }
+            } catch (JSONException ignored) {
+            }
+            store.delete(key);
+        }
+        return new DownloadCheckpoint(store, key, cid, totalSize, segmentSize,
+                new long[segmentCount(totalSize, segmentSize)], false);
+    }
+
+    private static int segmentCount(long totalSize, long segmentSize) {
+        return (int) ((totalSize + segmentSize - 1) / segmentSize);
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public int segmentCount() {
+        return committed.length();
+    }
+
+    public long segmentOffset(int segment) {
+        return segment * segmentSize;
+    }
+
+    public long segmentLength(int segment) {
+        return Math.min(segmentSize, totalSize - segmentOffset(segment));
+    }
+
+    public long committed(int segment) {
+        return committed.get(segment);
+    }
+
+    public long committedBytes() {
+        long total = 0;
+        for (int i = 0; i < committed.length(); i++) {
+            total += committed.get(i);
+        }
+        return total;
+    }
+
+    public long contiguousBytes() {
+        long contiguous = 0;
+        for (int i = 0; i < committed.length(); i++) {
+            long segmentCommitted = committed.get(i);
+            contiguous += segmentCommitted;
+            if (segmentCommitted < segmentLength(i)) {
+                break;
+            }
+        }
+        return contiguous;
+    }
+
+    public void commit(int segment, long bytes) throws IOException {
+        committed.addAndGet(segment, bytes);
+        boolean save;
+        synchronized (this) {
+            unsavedBytes += bytes;
+            save = unsavedBytes >= SAVE_INTERVAL_BYTES || committed.get(segment) == segmentLength(segment);
+            if (save) {
+                unsavedBytes = 0;
+            }
+        }
+        if (save) {
+            save();
+        }
+    }
+
+    public void save() throws IOException {
+        try {
+            JSONArray savedCommitted = new JSONArray();
+            for (int i = 0; i < committed.length(); i++) {
+                savedCommitted.put(committed.get(i));
+            }
+            store.save(key, new JSONObject()
+                    .put("cid", cid)
+                    .put("totalSize", totalSize)
+                    .put("segmentSize", segmentSize)
+                    .put("committed", savedCommitted));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void clear() {
+        store.delete(key);
+    }
+}
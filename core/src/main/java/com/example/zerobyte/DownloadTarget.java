@@ -0,0 +1,45 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+public interface DownloadTarget {
+    String key();
+
+    FileChannel openSeekable(boolean resume) throws IOException;
+
+    WritableByteChannel openStream() throws IOException;
+
+    FileChannel openReadable() throws IOException;
+
+    static DownloadTarget forFile(File file) {
+        return new DownloadTarget() {
+            @Override
+            public String key() {
+                return file.getAbsolutePath();
+            }
+
+            @Override
+            public FileChannel openSeekable(boolean resume) throws IOException {
+                FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+                if (!resume) {
+                    channel.truncate(0);
+                }
+                return channel;
+            }
+
+            @Override
+            public WritableByteChannel openStream() throws IOException {
+                return openSeekable(false);
+            }
+
+            @Override
+            public FileChannel openReadable() throws IOException {
+                return new RandomAccessFile(file, "r").getChannel();
+            }
+        };
+    }
+}
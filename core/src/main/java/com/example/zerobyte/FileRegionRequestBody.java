@@ -0,0 +1,56 @@
+package com.example.zerobyte;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+public class FileRegionRequestBody extends RequestBody {
+    private static final long MAX_TRANSFER_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+    private final MediaType contentType;
+    private final TransferProgress progress;
+
+    public FileRegionRequestBody(FileChannel channel, long offset, long length, MediaType contentType) {
+        this(channel, offset, length, contentType, null);
+    }
+
+    public FileRegionRequestBody(FileChannel channel, long offset, long length, MediaType contentType,
+                                 TransferProgress progress) {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+        this.progress = progress;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        long written = 0;
+        while (written < length) {
+            long transferred = channel.transferTo(offset + written,
+                    Math.min(MAX_TRANSFER_BYTES, length - written), sink);
+            if (transferred <= 0) {
+                throw new IOException("Source ended at " + (offset + written));
+            }
+            written += transferred;
+            if (progress != null) {
+                progress.add(transferred);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.zerobyte;
+
+public class IPFSClient {
+    final String address;
+    int refCount;
+    private final IPFSClientRegistry registry;
+    private final IPFSHttpAPI api;
+    private final IPFSHealthMonitor health;
+    private final NodeStats stats;
+
+    IPFSClient(IPFSClientRegistry registry, String address, IPFSHttpAPI api, NodeStats stats,
+               IPFSHealthMonitor health) {
+        this.registry = registry;
+        this.address = address;
+        this.api = api;
+        this.stats = stats;
+        this.health = health;
+    }
+
+    public String address() {
+        return address;
+    }
+
+    public IPFSHttpAPI api() {
+        return api;
+    }
+
+    public IPFSHealthMonitor health() {
+        return health;
+    }
+
+    public NodeStats stats() {
+        return stats;
+    }
+
+    public void release() {
+        registry.release(this);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.zerobyte;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+public class IPFSClientRegistry {
+    private static final int MAX_TRANSFERS = 6;
+    private static final int MAX_TRANSFERS_PER_NODE = 3;
+    private static final IPFSClientRegistry INSTANCE = new IPFSClientRegistry();
+
+    private final OkHttpClient httpClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .writeTimeout(60, TimeUnit.SECONDS)
+            .eventListenerFactory(MetricsEventListener.factory(TransferMetrics.shared(), "ipfs.http"))
+            .build();
+    private final TransferScheduler scheduler;
+    private final ExecutorService segmentExecutor = Executors.newCachedThreadPool(namedThreads("ipfs-segment"));
+    private final ExecutorService fetchExecutor = Executors.newCachedThreadPool(namedThreads("ipfs-fetch"));
+    private final ScheduledExecutorService healthScheduler =
+            Executors.newSingleThreadScheduledExecutor(namedThreads("ipfs-health"));
+    private final Map<String, IPFSClient> clients = new HashMap<>();
+
+    private IPFSClientRegistry() {
+        this(MAX_TRANSFERS, MAX_TRANSFERS_PER_NODE);
+    }
+
+    public IPFSClientRegistry(int maxTransfers, int maxTransfersPerNode) {
+        this.scheduler = new TransferScheduler(
+                Executors.newCachedThreadPool(namedThreads("ipfs-control")),
+                Executors.newCachedThreadPool(namedThreads("ipfs-transfer")),
+                maxTransfers, maxTransfersPerNode);
+    }
+
+    public static IPFSClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized IPFSClient acquire(String multiAddress) {
+        IPFSClient client = clients.get(multiAddress);
+        if (client == null) {
+            IPFSHttpAPI api = new IPFSHttpAPI(multiAddress, httpClient);
+            NodeStats stats = new NodeStats();
+            client = new IPFSClient(this, multiAddress, api, stats,
+                    new IPFSHealthMonitor(api, stats, healthScheduler));
+            clients.put(multiAddress, client);
+        }
+        client.refCount++;
+        return client;
+    }
+
+    synchronized void release(IPFSClient client) {
+        if (client.refCount > 0 && --client.refCount == 0) {
+            clients.remove(client.address);
+            client.health().stopHeartbeat();
+        }
+    }
+
+    public synchronized int activeClients() {
+        return clients.size();
+    }
+
+    public TransferScheduler scheduler() {
+        return scheduler;
+    }
+
+    public ExecutorService segmentExecutor() {
+        return segmentExecutor;
+    }
+
+    public ExecutorService fetchExecutor() {
+        return fetchExecutor;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.zerobyte;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class IPFSHealthMonitor {
+    private static final long DEFAULT_TTL_MILLIS = 10_000;
+    private static final long MAX_BACKOFF_MILLIS = 5 * 60_000;
+    private static final long COALESCE_MILLIS = 250;
+
+    private final IPFSHttpAPI api;
+    private final NodeStats stats;
+    private final ScheduledExecutorService scheduler;
+    private final Object probeLock = new Object();
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+    private volatile HealthStatus status;
+    private ScheduledFuture<?> heartbeat;
+    private long heartbeatIntervalMillis;
+    private int consecutiveFailures;
+
+    public IPFSHealthMonitor(IPFSHttpAPI api, NodeStats stats, ScheduledExecutorService scheduler) {
+        this.api = api;
+        this.stats = stats;
+        this.scheduler = scheduler;
+    }
+
+    public static class HealthStatus {
+        public final boolean online;
+        public final long roundTripMillis;
+        public final String message;
+        public final long checkedAtMillis;
+
+        public HealthStatus(boolean online, long roundTripMillis, String message, long checkedAtMillis) {
+            this.online = online;
+            this.roundTripMillis = roundTripMillis;
+            this.message = message;
+            this.checkedAtMillis = checkedAtMillis;
+        }
+
+        public boolean isFresh(long ttlMillis) {
+            return System.currentTimeMillis() - checkedAtMillis < ttlMillis;
+        }
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public HealthStatus cachedStatus() {
+        HealthStatus current = status;
+        return current != null && current.isFresh(ttlMillis) ? current : null;
+    }
+
+    public HealthStatus lastStatus() {
+        return status;
+    }
+
+    public HealthStatus check() {
+        HealthStatus cached = cachedStatus();
+        return cached != null ? cached : probe();
+    }
+
+    public HealthStatus probe() {
+        synchronized (probeLock) {
+            HealthStatus cached = status;
+            if (cached != null && System.currentTimeMillis() - cached.checkedAtMillis < COALESCE_MILLIS) {
+                return cached;
+            }
+            long start = System.nanoTime();
+            try {
+                api.version();
+                long rtt = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                TransferMetrics.shared().recordSince(TransferMetrics.HEALTH_CHECK, start);
+                stats.recordSuccess(rtt);
+                status = new HealthStatus(true, rtt, "Connected", System.currentTimeMillis());
+            } catch (Exception e) {
+                long rtt = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                TransferMetrics.shared().increment(TransferMetrics.HEALTH_FAILURES);
+                stats.recordFailure(rtt);
+                status = new HealthStatus(false, rtt,
+                        e.getMessage() != null ? e.getMessage() : "Connection failed", System.currentTimeMillis());
+            }
+            return status;
+        }
+    }
+
+    public synchronized void startHeartbeat(long intervalMillis) {
+        if (heartbeat != null && heartbeatIntervalMillis == intervalMillis) {
+            return;
+        }
+        stopHeartbeat();
+        heartbeatIntervalMillis = intervalMillis;
+        consecutiveFailures = 0;
+        heartbeat = scheduler.schedule(this::beat, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+
+    private void beat() {
+        HealthStatus result = probe();
+        synchronized (this) {
+            if (heartbeat == null) {
+                return;
+            }
+            consecutiveFailures = result.online ? 0 : consecutiveFailures + 1;
+            long delay = heartbeatIntervalMillis << Math.min(consecutiveFailures, 16);
+            heartbeat = scheduler.schedule(this::beat, Math.min(delay, MAX_BACKOFF_MILLIS),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+public class IPFSHttpAPI {
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+    private static final MediaType DIRECTORY = MediaType.get("application/x-directory");
+
+    private static final OkHttpClient defaultClient = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .writeTimeout(60, TimeUnit.SECONDS)
+            .build();
+
+    private static final long PROBE_TIMEOUT_SECONDS = 3;
+    public static final long MAX_BLOCK_SIZE = 2 * 1024 * 1024;
+
+    private final OkHttpClient client;
+    private final OkHttpClient probeClient;
+    private final HttpUrl baseUrl;
+    private final String multiAddress;
+
+    public IPFSHttpAPI(String multiAddress) {
+        this(multiAddress, defaultClient);
+    }
+
+    public IPFSHttpAPI(String multiAddress, OkHttpClient client) {
+        this.client = client;
+        this.multiAddress = multiAddress;
+        this.probeClient = client.newBuilder().callTimeout(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS).build();
+        this.baseUrl = toBaseUrl(multiAddress);
+    }
+
+    static HttpUrl toBaseUrl(String multiAddress) {
+        String[] parts = multiAddress.split("/");
+        if (parts.length < 5 || !"tcp".equals(parts[3])) {
+            throw new IllegalArgumentException("Unsupported multiaddress: " + multiAddress);
+        }
+        return new HttpUrl.Builder()
+                .scheme("http")
+                .host(parts[2])
+                .port(Integer.parseInt(parts[4]))
+                .addPathSegments("api/v0")
+                .build();
+    }
+
+    public static class ApiException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final int code;
+
+        ApiException(String message, int code) {
+            super(message);
+            this.code = code;
+        }
+
+        public boolean isServerError() {
+            return code >= 500;
+        }
+    }
+
+    public static class AddedFile {
+        public final String name;
+        public final String hash;
+        public final long size;
+
+        AddedFile(String name, String hash, long size) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+
+    public String add(String fileName, InputStream inputStream, UploadProfile profile, TransferProgress progress)
+            throws IOException, JSONException {
+        return add(fileName, new InputStreamRequestBody(inputStream, OCTET_STREAM, -1, progress), profile).hash;
+    }
+
+    public AddedFile addRegion(String fileName, FileChannel channel, long offset, long length,
+                               UploadProfile profile, TransferProgress progress) throws IOException, JSONException {
+        return add(fileName, new FileRegionRequestBody(channel, offset, length, OCTET_STREAM, progress), profile);
+    }
+
+    private AddedFile add(String fileName, RequestBody content, UploadProfile profile)
+            throws IOException, JSONException {
+        MultipartBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", fileName, content)
+                .build();
+        List<AddedFile> added = add(body, false, profile);
+        if (added.isEmpty()) {
+            throw new IOException("Add returned no hash");
+        }
+        return added.get(added.size() - 1);
+    }
+
+    public List<AddedFile> addDirectory(Map<String, RequestBody> entries, UploadProfile profile)
+            throws IOException, JSONException {
+        MultipartBody.Builder body = new MultipartBody.Builder().setType(MultipartBody.FORM);
+        for (Map.Entry<String, RequestBody> entry : entries.entrySet()) {
+            RequestBody content = entry.getValue() != null ? entry.getValue()
+                    : RequestBody.create(new byte[0], DIRECTORY);
+            body.addFormDataPart("file", encodePath(entry.getKey()), content);
+        }
+        List<AddedFile> added = add(body.build(), true, profile);
+        if (added.isEmpty()) {
+            throw new IOException("Add returned no hash");
+        }
+        return added;
+    }
+
+    private List<AddedFile> add(MultipartBody body, boolean wrap, UploadProfile profile)
+            throws IOException, JSONException {
+        HttpUrl.Builder url = baseUrl.newBuilder()
+                .addPathSegment("add")
+                .addQueryParameter("pin", "true")
+                .addQueryParameter("wrap-with-directory", Boolean.toString(wrap))
+                .addQueryParameter("progress", "false")
+                .addQueryParameter("stream-channels", "true");
+        if (profile != null) {
+            url.addQueryParameter("chunker", profile.chunker)
+                    .addQueryParameter("raw-leaves", Boolean.toString(profile.rawLeaves))
+                    .addQueryParameter("cid-version", Integer.toString(profile.cidVersion))
+                    .addQueryParameter("trickle", Boolean.toString(profile.trickle));
+            if (profile.cidVersion == 1) {
+                url.addQueryParameter("cid-base", "base32");
+            }
+        }
+        Request request = new Request.Builder().url(url.build()).post(body).build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Add", response);
+            }
+            List<AddedFile> added = new ArrayList<>();
+            BufferedSource source = response.body().source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.isEmpty()) {
+                    JSONObject entry = new JSONObject(line);
+                    added.add(new AddedFile(entry.optString("Name"), entry.getString("Hash"),
+                            entry.optLong("Size")));
+                }
+            }
+            return added;
+        }
+    }
+
+    private static String encodePath(String path) throws UnsupportedEncodingException {
+        StringBuilder encoded = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (encoded.length() > 0) {
+                encoded.append('/');
+            }
+            encoded.append(URLEncoder.encode(segment, "UTF-8").replace("+", "%20"));
+        }
+        return encoded.toString();
+    }
+
+    public void putDagPbNode(byte[] node) throws IOException {
+        MultipartBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", "node", RequestBody.create(node, OCTET_STREAM))
+                .build();
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegments("dag/put")
+                .addQueryParameter("store-codec", "dag-pb")
+                .addQueryParameter("input-codec", "dag-pb")
+                .addQueryParameter("pin", "true")
+                .build();
+        try (Response response = client.newCall(new Request.Builder().url(url).post(body).build()).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Dag put", response);
+            }
+        }
+    }
+
+    public void unpin(String cid) throws IOException {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegments("pin/rm")
+                .addQueryParameter("arg", cid)
+                .build();
+        try (Response response = client.newCall(post(url)).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Unpin", response);
+            }
+        }
+    }
+
+    public boolean isPinned(String cid) throws IOException {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegments("pin/ls")
+                .addQueryParameter("arg", cid)
+                .addQueryParameter("type", "recursive")
+                .build();
+        try (Response response = client.newCall(post(url)).execute()) {
+            if (response.isSuccessful()) {
+                return true;
+            }
+            ApiException error = failure("Pin ls", response);
+            if (error.code == 500 && error.getMessage().contains("is not pinned")) {
+                return false;
+            }
+            throw error;
+        }
+    }
+
+    public long fileSize(String cid) throws IOException, JSONException {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegments("files/stat")
+                .addQueryParameter("arg", "/ipfs/" + cid)
+                .build();
+        try (Response response = client.newCall(post(url)).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Stat", response);
+            }
+            return new JSONObject(response.body().string()).getLong("Size");
+        }
+    }
+
+    public InputStream cat(String cid, long offset, long length) throws IOException {
+        return openCat(catCall(cid, offset, length)).inputStream();
+    }
+
+    public Call catCall(String cid, long offset, long length) {
+        HttpUrl.Builder url = baseUrl.newBuilder()
+                .addPathSegment("cat")
+                .addQueryParameter("arg", cid);
+        if (offset > 0) {
+            url.addQueryParameter("offset", Long.toString(offset));
+        }
+        if (length >= 0) {
+            url.addQueryParameter("length", Long.toString(length));
+        }
+        return client.newCall(post(url.build()));
+    }
+
+    public BufferedSource openCat(Call call) throws IOException {
+        Response response = call.execute();
+        if (!response.isSuccessful()) {
+            ApiException error = failure("Cat", response);
+            response.close();
+            throw error;
+        }
+        return response.body().source();
+    }
+
+    public byte[] blockGet(String cid) throws IOException {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegments("block/get")
+                .addQueryParameter("arg", cid)
+                .build();
+        try (Response response = client.newCall(post(url)).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Block get", response);
+            }
+            ResponseBody body = response.body();
+            BufferedSource source = body.source();
+            if (body.contentLength() > MAX_BLOCK_SIZE || source.request(MAX_BLOCK_SIZE + 1)) {
+                throw new IOException("Block " + cid + " exceeds " + MAX_BLOCK_SIZE + " bytes");
+            }
+            return source.readByteArray();
+        }
+    }
+
+    public String version() throws IOException, JSONException {
+        HttpUrl url = baseUrl.newBuilder().addPathSegment("version").build();
+        try (Response response = probeClient.newCall(post(url)).execute()) {
+            if (!response.isSuccessful()) {
+                throw failure("Version", response);
+            }
+            return new JSONObject(response.body().string()).getString("Version");
+        }
+    }
+
+    public String address() {
+        return multiAddress;
+    }
+
+    private static ApiException failure(String operation, Response response) {
+        String message = null;
+        try {
+            message = new JSONObject(response.body().string()).optString("Message", null);
+        } catch (IOException | JSONException ignored) {
+        }
+        return new ApiException(operation + " failed: " + response.code()
+                + (message != null ? " (" + message + ")" : ""), response.code());
+    }
+
+    private static Request post(HttpUrl url) {
+        return new Request.Builder().url(url).post(RequestBody.create(new byte[0], null)).build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.zerobyte;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class IPFSNodeRouter {
+    private final List<IPFSClient> nodes;
+
+    public IPFSNodeRouter(List<IPFSClient> nodes) {
+        this.nodes = nodes;
+    }
+
+    public interface NodeCall<T> {
+        T call(IPFSHttpAPI api) throws Exception;
+    }
+
+    public List<IPFSClient> nodes() {
+        return nodes;
+    }
+
+    public IPFSClient select() {
+        return select(Collections.emptySet());
+    }
+
+    public IPFSClient select(Collection<IPFSClient> excluded) {
+        return select(excluded, true);
+    }
+
+    public IPFSClient selectAvailable(Collection<IPFSClient> excluded) {
+        return select(excluded, false);
+    }
+
+    private IPFSClient select(Collection<IPFSClient> excluded, boolean allowOpen) {
+        IPFSClient best = null;
+        IPFSClient soonestOpen = null;
+        for (IPFSClient node : nodes) {
+            if (excluded.contains(node)) {
+                continue;
+            }
+            if (node.stats().isAvailable()) {
+                if (best == null || node.stats().score() < best.stats().score()) {
+                    best = node;
+                }
+            } else if (soonestOpen == null
+                    || node.stats().openUntilMillis() < soonestOpen.stats().openUntilMillis()) {
+                soonestOpen = node;
+            }
+        }
+        if (best != null) {
+            best.stats().tryAcquire();
+            return best;
+        }
+        return allowOpen ? soonestOpen : null;
+    }
+
+    public IPFSClient select(Collection<IPFSClient> excluded, TransferHandle handle) {
+        return select(excluded, handle, true);
+    }
+
+    private IPFSClient select(Collection<IPFSClient> excluded, TransferHandle handle, boolean allowOpen) {
+        IPFSClient bound = handle != null ? handle.node() : null;
+        if (bound != null && !excluded.contains(bound) && bound.stats().tryAcquire()) {
+            return bound;
+        }
+        IPFSClient node = select(excluded, allowOpen);
+        if (node != null && handle != null) {
+            handle.bind(node);
+        }
+        return node;
+    }
+
+    public <T> T execute(NodeCall<T> call) throws Exception {
+        return execute(call, true);
+    }
+
+    public <T> T execute(NodeCall<T> call, boolean timed) throws Exception {
+        return execute(call, timed, null);
+    }
+
+    public <T> T execute(NodeCall<T> call, boolean timed, TransferHandle handle) throws Exception {
+        return execute(call, timed, handle, true);
+    }
+
+    public <T> T executeOnAvailable(NodeCall<T> call, TransferHandle handle) throws Exception {
+        return execute(call, false, handle, false);
+    }
+
+    private <T> T execute(NodeCall<T> call, boolean timed, TransferHandle handle, boolean allowOpen)
+            throws Exception {
+        Set<IPFSClient> tried = new HashSet<>();
+        Exception lastError = null;
+        IPFSClient node;
+        while ((node = select(tried, handle, allowOpen)) != null) {
+            if (lastError != null) {
+                TransferMetrics.shared().increment(TransferMetrics.NODE_RETRIES);
+            }
+            tried.add(node);
+            long start = System.nanoTime();
+            boolean recorded = false;
+            try {
+                T result = call.call(node.api());
+                node.stats().recordSuccess(timed ? elapsedMillis(start) : -1);
+                recorded = true;
+                return result;
+            } catch (IPFSHttpAPI.ApiException e) {
+                if (e.isServerError()) {
+                    node.stats().recordFailure(timed ? elapsedMillis(start) : -1);
+                } else {
+                    node.stats().recordSuccess(timed ? elapsedMillis(start) : -1);
+                }
+                recorded = true;
+                lastError = e;
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                node.stats().recordFailure(timed ? elapsedMillis(start) : -1);
+                recorded = true;
+                lastError = e;
+            } finally {
+                if (!recorded) {
+                    node.stats().releaseTrial();
+                }
+            }
+        }
+        throw lastError != null ? lastError : new IOException("No IPFS node available");
+    }
+
+    static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,576 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class IPFSTransfers {
+    private static final Logger log = Logger.getLogger("IPFSTransfers");
+    private static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+    private static final long SEGMENTED_DOWNLOAD_THRESHOLD = 8 * 1024 * 1024;
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+
+    private final List<IPFSClient> clients = new ArrayList<>();
+    private final IPFSNodeRouter router;
+    private final CidFetcher fetcher;
+    private final VerifiedFetcher verifiedFetcher;
+    private final TransferScheduler scheduler;
+    private final ExecutorService fetchExecutor;
+    private final ExecutorService segmentExecutor;
+    private final Set<TransferHandle> pendingTasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final TransferCheckpointStore checkpointStore;
+    private final ContentCache contentCache;
+    private final UploadIndex uploadIndex;
+    private final TransferMetrics metrics = TransferMetrics.shared();
+    private volatile int downloadConcurrency = DEFAULT_DOWNLOAD_CONCURRENCY;
+    private volatile boolean checkpointedUploads;
+    private volatile boolean deduplicatedUploads = true;
+    private volatile UploadProfile uploadProfile = UploadProfile.DEFAULT;
+    private volatile boolean verifiedDownloads;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public IPFSTransfers(IPFSClientRegistry registry, List<String> ipfsAddresses,
+                         TransferCheckpointStore checkpointStore, ContentCache contentCache,
+                         UploadIndex uploadIndex) {
+        for (String ipfsAddress : ipfsAddresses) {
+            clients.add(registry.acquire(ipfsAddress));
+        }
+        this.router = new IPFSNodeRouter(clients);
+        this.fetchExecutor = registry.fetchExecutor();
+        this.fetcher = new CidFetcher(router, fetchExecutor, registry.scheduler());
+        this.fetcher.setHedging(clients.size() > 1);
+        this.verifiedFetcher = new VerifiedFetcher(router, fetchExecutor);
+        this.scheduler = registry.scheduler();
+        this.segmentExecutor = registry.segmentExecutor();
+        this.checkpointStore = checkpointStore;
+        this.contentCache = contentCache;
+        this.uploadIndex = uploadIndex;
+    }
+
+    public interface Callback<T> {
+        void onComplete(T result);
+        void onFailed(Exception error);
+    }
+
+    public void probe(Consumer<IPFSHealthMonitor.HealthStatus> callback) {
+        IPFSHealthMonitor.HealthStatus cached = clusterStatus(false);
+        if (cached != null) {
+            callback.accept(cached);
+            return;
+        }
+        track(scheduler.control(() -> callback.accept(clusterStatus(true))));
+    }
+
+    private IPFSHealthMonitor.HealthStatus clusterStatus(boolean probe) {
+        List<IPFSHealthMonitor.HealthStatus> statuses = new ArrayList<>();
+        for (IPFSClient client : clients) {
+            IPFSHealthMonitor.HealthStatus status = probe ? client.health().check() : client.health().cachedStatus();
+            if (status == null) {
+                return null;
+            }
+            statuses.add(status);
+        }
+        if (statuses.size() == 1) {
+            return statuses.get(0);
+        }
+        IPFSHealthMonitor.HealthStatus fastest = null;
+        int online = 0;
+        for (IPFSHealthMonitor.HealthStatus status : statuses) {
+            if (status.online) {
+                online++;
+                if (fastest == null || status.roundTripMillis < fastest.roundTripMillis) {
+                    fastest = status;
+                }
+            }
+        }
+        if (fastest == null) {
+            return statuses.get(0);
+        }
+        return new IPFSHealthMonitor.HealthStatus(true, fastest.roundTripMillis,
+                "Connected to " + online + " of " + statuses.size() + " nodes", fastest.checkedAtMillis);
+    }
+
+    private TransferHandle track(TransferHandle handle) {
+        pendingTasks.add(handle);
+        handle.whenDone(() -> pendingTasks.remove(handle));
+        return handle;
+    }
+
+    public void setCheckpointedUploads(boolean checkpointedUploads) {
+        this.checkpointedUploads = checkpointedUploads;
+    }
+
+    public void setUploadProfile(UploadProfile uploadProfile) {
+        this.uploadProfile = uploadProfile;
+    }
+
+    public UploadProfile getUploadProfile() {
+        return uploadProfile;
+    }
+
+    public void setDeduplicatedUploads(boolean deduplicatedUploads) {
+        this.deduplicatedUploads = deduplicatedUploads;
+    }
+
+    public TransferHandle upload(TransferSource source, Callback<String> callback) {
+        TransferHandle handle = track(new TransferHandle(scheduler));
+        return scheduler.control(handle, () -> {
+            long size = source.size();
+            TransferProgress progress = handle.progress();
+            progress.setTotal(size);
+            long queuedAt = System.nanoTime();
+            scheduler.bulk(handle, clients, size, () -> {
+                metrics.recordSince(TransferMetrics.UPLOAD_QUEUE, queuedAt);
+                long start = System.nanoTime();
+                try {
+                    UploadProfile profile = uploadProfile;
+                    String localCid = deduplicatedUploads && profile.isLocallyComputable()
+                            ? localCid(source, profile) : null;
+                    String cid = localCid != null ? findUploaded(localCid) : null;
+                    if (cid != null) {
+                        metrics.increment(TransferMetrics.UPLOAD_DEDUPLICATED);
+                        metrics.increment(TransferMetrics.UPLOAD_DEDUPLICATED_BYTES, Math.max(0, size));
+                        progress.set(Math.max(0, size));
+                    } else {
+                        if (checkpointedUploads && profile == UploadProfile.DEFAULT) {
+                            cid = uploadCheckpointed(source, size, localCid, handle);
+                        }
+                        if (cid == null) {
+                            cid = uploadStreamed(source, localCid, profile, handle);
+                        }
+                        metrics.recordTransfer(TransferMetrics.UPLOAD_TIME, TransferMetrics.UPLOAD_THROUGHPUT,
+                                TransferMetrics.UPLOAD_BYTES, start, size);
+                    }
+                    callback.onComplete(cid);
+                } catch (Exception e) {
+                    metrics.increment(TransferMetrics.UPLOAD_FAILURES);
+                    callback.onFailed(e);
+                }
+            });
+        });
+    }
+
+    public TransferHandle uploadCollection(Supplier<List<CollectionUpload.Entry>> entries,
+                                           Callback<CollectionUpload.Result> callback) {
+        TransferHandle handle = track(new TransferHandle(scheduler));
+        return scheduler.control(handle, () -> {
+            CollectionUpload upload;
+            try {
+                upload = new CollectionUpload(fetchExecutor, entries.get());
+            } catch (RuntimeException e) {
+                callback.onFailed(e);
+                return;
+            }
+            long queuedAt = System.nanoTime();
+            scheduler.bulk(handle, clients, upload.totalSize(), () -> {
+                metrics.recordSince(TransferMetrics.UPLOAD_QUEUE, queuedAt);
+                long start = System.nanoTime();
+                try {
+                    UploadProfile profile = uploadProfile;
+                    CollectionUpload.Result result = router.execute(api -> upload.upload(api, profile,
+                            handle.progress()), false, handle);
+                    metrics.recordTransfer(TransferMetrics.UPLOAD_TIME, TransferMetrics.UPLOAD_THROUGHPUT,
+                            TransferMetrics.UPLOAD_BYTES, start, upload.totalSize());
+                    callback.onComplete(result);
+                } catch (Exception e) {
+                    metrics.increment(TransferMetrics.UPLOAD_FAILURES);
+                    callback.onFailed(e);
+                }
+            });
+        });
+    }
+
+    private static ReadableByteChannel channelOf(InputStream inputStream) {
+        return inputStream instanceof FileInputStream ? ((FileInputStream) inputStream).getChannel()
+                : Channels.newChannel(inputStream);
+    }
+
+    private String localCid(TransferSource source, UploadProfile profile) {
+        BufferPool pool = BufferPool.shared();
+        ByteBuffer buffer = pool.acquire(HASH_BUFFER_SIZE);
+        try (InputStream inputStream = source.open()) {
+            if (inputStream == null) {
+                return null;
+            }
+            CidBuilder builder = new CidBuilder(profile);
+            ReadableByteChannel channel = channelOf(inputStream);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                builder.update(buffer);
+                buffer.clear();
+            }
+            return builder.finish();
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Cannot compute local CID", e);
+            return null;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private String findUploaded(String localCid) {
+        for (IPFSClient client : clients) {
+            String address = client.api().address();
+            String cid = uploadIndex.get(localCid, address);
+            if (cid == null || !client.stats().isAvailable()) {
+                continue;
+            }
+            try {
+                if (client.api().isPinned(cid)) {
+                    return cid;
+                }
+                uploadIndex.remove(localCid, address);
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot confirm " + cid + " on " + address, e);
+            }
+        }
+        return null;
+    }
+
+    private void rememberUpload(String localCid, IPFSHttpAPI api, String cid) {
+        if (localCid == null) {
+            return;
+        }
+        uploadIndex.put(localCid, api.address(), cid);
+    }
+
+    private String uploadStreamed(TransferSource source, String localCid, UploadProfile profile,
+                                  TransferHandle handle) throws Exception {
+        TransferProgress progress = handle.progress();
+        String fileName = source.name();
+        return router.execute(api -> {
+            progress.set(0);
+            try (InputStream inputStream = source.open()) {
+                if (inputStream == null) {
+                    throw new FileNotFoundException("Cannot open file");
+                }
+                String name = fileName != null ? fileName : "file";
+                if (inputStream instanceof FileInputStream) {
+                    FileChannel channel = ((FileInputStream) inputStream).getChannel();
+                    long size = regionSize(channel);
+                    if (size > 0) {
+                        String cid = api.addRegion(name, channel, channel.position(), size, profile, progress).hash;
+                        rememberUpload(localCid, api, cid);
+                        return cid;
+                    }
+                }
+                String cid = api.add(name, inputStream, profile, progress);
+                rememberUpload(localCid, api, cid);
+                return cid;
+            }
+        }, false, handle);
+    }
+
+    private static long regionSize(FileChannel channel) {
+        try {
+            return channel.size() - channel.position();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private String uploadCheckpointed(TransferSource source, long size, String localCid, TransferHandle handle)
+            throws Exception {
+        TransferProgress progress = handle.progress();
+        if (size <= ResumableUploader.MIN_CHUNK_SIZE) {
+            return null;
+        }
+        try (InputStream inputStream = source.open()) {
+            if (!(inputStream instanceof FileInputStream)) {
+                return null;
+            }
+            String key = source.key() + "@" + source.lastModified();
+            try (FileChannel channel = ((FileInputStream) inputStream).getChannel()) {
+                return router.executeOnAvailable(api -> {
+                    String cid = new ResumableUploader(api, checkpointStore).upload(key, channel, size, progress);
+                    rememberUpload(localCid, api, cid);
+                    return cid;
+                }, handle);
+            }
+        }
+    }
+
+    public void setHedgedFetches(boolean hedgedFetches) {
+        fetcher.setHedging(hedgedFetches && clients.size() > 1);
+    }
+
+    public CidFetcher.HedgeStats getHedgeStats() {
+        return fetcher.stats();
+    }
+
+    public void setVerifiedDownloads(boolean verifiedDownloads) {
+        this.verifiedDownloads = verifiedDownloads;
+    }
+
+    public void setDownloadConcurrency(int downloadConcurrency) {
+        this.downloadConcurrency = Math.max(1, downloadConcurrency);
+    }
+
+    public TransferHandle download(String cid, DownloadTarget target, Callback<Void> callback) {
+        TransferHandle handle = track(new TransferHandle(scheduler));
+        return scheduler.control(handle, () -> {
+            long size = contentSize(cid);
+            TransferProgress progress = handle.progress();
+            progress.setTotal(size);
+            long queuedAt = System.nanoTime();
+            scheduler.bulk(handle, clients, size, () -> {
+                metrics.recordSince(TransferMetrics.DOWNLOAD_QUEUE, queuedAt);
+                long start = System.nanoTime();
+                try {
+                    if (copyFromCache(cid, target)) {
+                        metrics.increment(TransferMetrics.DOWNLOAD_CACHE_HITS);
+                        progress.set(Math.max(0, size));
+                    } else {
+                        if (verifiedDownloads) {
+                            downloadVerified(cid, target, progress);
+                        } else if (!downloadSegmented(cid, size, target, progress)) {
+                            downloadSingleStream(cid, target, handle);
+                        }
+                        metrics.recordTransfer(TransferMetrics.DOWNLOAD_TIME, TransferMetrics.DOWNLOAD_THROUGHPUT,
+                                TransferMetrics.DOWNLOAD_BYTES, start, size);
+                        storeInCache(cid, target, verifiedDownloads);
+                    }
+                    callback.onComplete(null);
+                } catch (Exception e) {
+                    metrics.increment(TransferMetrics.DOWNLOAD_FAILURES);
+                    callback.onFailed(e);
+                }
+            });
+        });
+    }
+
+    public long contentSize(String cid) {
+        long cachedSize = contentCache.sizeOf(cid);
+        if (cachedSize >= 0) {
+            return cachedSize;
+        }
+        try {
+            return router.execute(api -> api.fileSize(cid));
+        } catch (Exception e) {
+            return TransferScheduler.UNKNOWN_SIZE;
+        }
+    }
+
+    private boolean copyFromCache(String cid, DownloadTarget target) throws IOException {
+        FileChannel channel;
+        try {
+            channel = target.openSeekable(true);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Cache bypassed for " + cid, e);
+            return false;
+        }
+        if (channel == null) {
+            return false;
+        }
+        try (FileChannel owned = channel) {
+            return contentCache.copyTo(cid, owned);
+        }
+    }
+
+    private void storeInCache(String cid, DownloadTarget target, boolean verified) {
+        try (FileChannel channel = target.openReadable()) {
+            if (channel != null) {
+                contentCache.put(cid, channel, channel.size(), verified);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Cannot cache " + cid, e);
+        }
+    }
+
+    public TransferMetrics.Snapshot getTransferMetrics() {
+        return metrics.snapshot();
+    }
+
+    public ContentCache.Stats getCacheStats() {
+        return contentCache.stats();
+    }
+
+    public void setCacheBudget(long maxBytes) {
+        contentCache.setMaxBytes(maxBytes);
+    }
+
+    private void downloadSingleStream(String cid, DownloadTarget target, TransferHandle handle)
+            throws IOException {
+        try (WritableByteChannel channel = target.openStream()) {
+            downloadSingleStream(cid, channel, handle.progress()::set, handle);
+        }
+    }
+
+    private void downloadVerified(String cid, DownloadTarget target, TransferProgress progress)
+            throws IOException, InterruptedException {
+        try (WritableByteChannel channel = target.openStream()) {
+            verifiedFetcher.fetch(cid, channel, progress::set);
+        }
+    }
+
+    private void downloadSingleStream(String cid, WritableByteChannel target, LongConsumer contiguousBytes,
+                                      TransferHandle handle) throws IOException {
+        Set<IPFSClient> tried = new HashSet<>();
+        long written = 0;
+        while (true) {
+            CidFetcher.Fetch fetch = fetcher.open(cid, written, -1, tried, handle);
+            try (CidFetcher.Fetch open = fetch;
+                 BufferedTransfer transfer = new BufferedTransfer(BufferPool.shared())) {
+                ByteBuffer chunk;
+                while ((chunk = transfer.fill(open.source)) != null) {
+                    written += chunk.remaining();
+                    while (chunk.hasRemaining()) {
+                        target.write(chunk);
+                    }
+                    if (contiguousBytes != null) {
+                        contiguousBytes.accept(written);
+                    }
+                }
+                return;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                fetch.node.stats().recordFailure(-1);
+                if (tried.size() >= clients.size()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private DownloadCheckpoint segmentedCheckpoint(String cid, long knownSize, String destination) {
+        if (downloadConcurrency <= 1 || knownSize < SEGMENTED_DOWNLOAD_THRESHOLD) {
+            return null;
+        }
+        return DownloadCheckpoint.open(checkpointStore, destination, cid, knownSize,
+                SegmentedDownloader.segmentSize(knownSize, downloadConcurrency));
+    }
+
+    private boolean downloadSegmented(String cid, long knownSize, DownloadTarget target, TransferProgress progress)
+            throws Exception {
+        DownloadCheckpoint checkpoint = segmentedCheckpoint(cid, knownSize, target.key());
+        if (checkpoint == null) {
+            return false;
+        }
+        try (FileChannel channel = target.openSeekable(checkpoint.isResumed())) {
+            if (channel == null) {
+                return false;
+            }
+            try {
+                channel.position(0);
+            } catch (IOException e) {
+                return false;
+            }
+            new SegmentedDownloader(fetcher, segmentExecutor, downloadConcurrency)
+                    .download(checkpoint, channel, null, progress);
+        }
+        checkpoint.clear();
+        return true;
+    }
+
+    public TransferHandle downloadToFile(String cid, File target, LongConsumer contiguousBytes,
+                                         Callback<Void> callback) {
+        TransferHandle handle = track(new TransferHandle(scheduler));
+        return scheduler.control(handle, () -> {
+            long size = contentSize(cid);
+            TransferProgress progress = handle.progress();
+            progress.setTotal(size);
+            LongConsumer reported = bytes -> {
+                contiguousBytes.accept(bytes);
+                progress.set(bytes);
+            };
+            long queuedAt = System.nanoTime();
+            scheduler.bulk(handle, clients, size, () -> {
+                metrics.recordSince(TransferMetrics.DOWNLOAD_QUEUE, queuedAt);
+                long start = System.nanoTime();
+                boolean existing = target.exists();
+                try (FileChannel channel = new RandomAccessFile(target, "rw").getChannel()) {
+                    if (contentCache.copyTo(cid, channel)) {
+                        metrics.increment(TransferMetrics.DOWNLOAD_CACHE_HITS);
+                        reported.accept(channel.size());
+                    } else {
+                        DownloadCheckpoint checkpoint = verifiedDownloads ? null
+                                : segmentedCheckpoint(cid, size, target.getPath());
+                        if (checkpoint != null && checkpoint.isResumed() && !existing) {
+                            checkpoint.clear();
+                            checkpoint = segmentedCheckpoint(cid, size, target.getPath());
+                        }
+                        if (checkpoint != null) {
+                            if (!checkpoint.isResumed()) {
+                                channel.truncate(0);
+                            }
+                            new SegmentedDownloader(fetcher, segmentExecutor, downloadConcurrency)
+                                    .download(checkpoint, channel, contiguousBytes, progress);
+                            checkpoint.clear();
+                        } else if (verifiedDownloads) {
+                            channel.truncate(0);
+                            verifiedFetcher.fetch(cid, channel, reported);
+                        } else {
+                            channel.truncate(0);
+                            downloadSingleStream(cid, channel, reported, handle);
+                        }
+                        metrics.recordTransfer(TransferMetrics.DOWNLOAD_TIME, TransferMetrics.DOWNLOAD_THROUGHPUT,
+                                TransferMetrics.DOWNLOAD_BYTES, start, channel.size());
+                        channel.position(0);
+                        try {
+                            contentCache.put(cid, channel, channel.size(), verifiedDownloads);
+                        } catch (IOException e) {
+                            log.log(Level.WARNING, "Cannot cache " + cid, e);
+                        }
+                    }
+                    callback.onComplete(null);
+                } catch (Exception e) {
+                    metrics.increment(TransferMetrics.DOWNLOAD_FAILURES);
+                    callback.onFailed(e);
+                }
+            });
+        });
+    }
+
+    public IPFSHealthMonitor.HealthStatus getHealthStatus() {
+        return clusterStatus(false);
+    }
+
+    public List<IPFSClient> getNodes() {
+        return Collections.unmodifiableList(clients);
+    }
+
+    public void setHeartbeatEnabled(boolean enabled, long intervalMillis) {
+        for (IPFSClient client : clients) {
+            if (enabled) {
+                client.health().startHeartbeat(intervalMillis);
+            } else {
+                client.health().stopHeartbeat();
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (TransferHandle task : pendingTasks) {
+            task.cancel();
+        }
+        pendingTasks.clear();
+        if (released.compareAndSet(false, true)) {
+            for (IPFSClient client : clients) {
+                client.release();
+            }
+        }
+    }
+}
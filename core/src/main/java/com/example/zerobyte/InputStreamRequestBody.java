@@ -0,0 +1,72 @@
+package com.example.zerobyte;
+
+import java.io.IOException;
+import java.io.InputStream;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+public class InputStreamRequestBody extends RequestBody {
+    private final InputStream inputStream;
+    private final MediaType contentType;
+    private final long contentLength;
+    private final TransferProgress progress;
+
+    public InputStreamRequestBody(InputStream inputStream, MediaType contentType) {
+        this(inputStream, contentType, -1);
+    }
+
+    public InputStreamRequestBody(InputStream inputStream, MediaType contentType, long contentLength) {
+        this(inputStream, contentType, contentLength, null);
+    }
+
+    public InputStreamRequestBody(InputStream inputStream, MediaType contentType, long contentLength,
+                                  TransferProgress progress) {
+        this.inputStream = inputStream;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.progress = progress;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (Source source = counted(Okio.source(inputStream))) {
+            sink.writeAll(source);
+        }
+    }
+
+    private Source counted(Source source) {
+        if (progress == null) {
+            return source;
+        }
+        return new ForwardingSource(source) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    progress.add(read);
+                }
+                return read;
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.zerobyte;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+public class MetricsEventListener extends EventListener {
+    private final TransferMetrics metrics;
+    private final Names names;
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long requestStart;
+
+    private MetricsEventListener(TransferMetrics metrics, Names names) {
+        this.metrics = metrics;
+        this.names = names;
+    }
+
+    private static class Names {
+        final String dns;
+        final String connect;
+        final String connectFailures;
+        final String connectionsReused;
+        final String ttfb;
+        final String call;
+        final String callFailures;
+
+        Names(String prefix) {
+            dns = prefix + ".dns_us";
+            connect = prefix + ".connect_us";
+            connectFailures = prefix + ".connect_failures";
+            connectionsReused = prefix + ".connections_reused";
+            ttfb = prefix + ".ttfb_us";
+            call = prefix + ".call_us";
+            callFailures = prefix + ".call_failures";
+        }
+    }
+
+    public static EventListener.Factory factory(TransferMetrics metrics, String prefix) {
+        Names names = new Names(prefix);
+        return call -> new MetricsEventListener(metrics, names);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+        metrics.recordSince(names.dns, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+        metrics.recordSince(names.connect, connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol,
+                              IOException e) {
+        metrics.increment(names.connectFailures);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        if (connectStart == 0) {
+            metrics.increment(names.connectionsReused);
+        }
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        if (requestStart != 0) {
+            metrics.recordSince(names.ttfb, requestStart);
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        metrics.recordSince(names.call, callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException e) {
+        metrics.increment(names.callFailures);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.zerobyte;
+
+import java.util.function.LongSupplier;
+
+public class NodeStats {
+    private static final double ALPHA = 0.3;
+    private static final double INITIAL_LATENCY_MILLIS = 200;
+    private static final int FAILURES_TO_OPEN = 3;
+    private static final double ERROR_RATE_TO_OPEN = 0.5;
+    private static final long BASE_COOLDOWN_MILLIS = 15_000;
+    private static final long MAX_COOLDOWN_MILLIS = 5 * 60_000;
+
+    public enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    private double latencyMillis = INITIAL_LATENCY_MILLIS;
+    private double errorRate;
+    private int consecutiveFailures;
+    private int openCount;
+    private BreakerState state = BreakerState.CLOSED;
+    private long openUntilMillis;
+    private boolean trialInFlight;
+    private final LongSupplier clock;
+
+    public NodeStats() {
+        this(System::currentTimeMillis);
+    }
+
+    NodeStats(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public synchronized void recordSuccess(long latencyMillis) {
+        if (latencyMillis >= 0) {
+            this.latencyMillis = ALPHA * latencyMillis + (1 - ALPHA) * this.latencyMillis;
+        }
+        errorRate = (1 - ALPHA) * errorRate;
+        consecutiveFailures = 0;
+        openCount = 0;
+        trialInFlight = false;
+        state = BreakerState.CLOSED;
+    }
+
+    public synchronized void recordFailure(long latencyMillis) {
+        if (latencyMillis >= 0) {
+            this.latencyMillis = ALPHA * latencyMillis + (1 - ALPHA) * this.latencyMillis;
+        }
+        errorRate = ALPHA + (1 - ALPHA) * errorRate;
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == BreakerState.HALF_OPEN || consecutiveFailures >= FAILURES_TO_OPEN
+                || errorRate >= ERROR_RATE_TO_OPEN) {
+            long cooldown = Math.min(BASE_COOLDOWN_MILLIS << Math.min(openCount, 8), MAX_COOLDOWN_MILLIS);
+            openCount++;
+            state = BreakerState.OPEN;
+            openUntilMillis = clock.getAsLong() + cooldown;
+        }
+    }
+
+    public synchronized boolean isAvailable() {
+        if (state == BreakerState.OPEN && clock.getAsLong() >= openUntilMillis) {
+            state = BreakerState.HALF_OPEN;
+        }
+        return state == BreakerState.CLOSED || (state == BreakerState.HALF_OPEN && !trialInFlight);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (!isAvailable()) {
+            return false;
+        }
+        if (state == BreakerState.HALF_OPEN) {
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    public synchronized double score() {
+        return latencyMillis * (1 + 4 * errorRate);
+    }
+
+    public synchronized double latencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double errorRate() {
+        return errorRate;
+    }
+
+    public synchronized BreakerState state() {
+        isAvailable();
+        return state;
+    }
+
+    public synchronized long openUntilMillis() {
+        return openUntilMillis;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ResumableUploader {
+    private static final Logger log = Logger.getLogger("IPFSUpload");
+    public static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final long CHUNK_ALIGNMENT = 256 * 1024;
+    private static final int MAX_CHUNKS = 4096;
+    private static final int FINGERPRINT_SAMPLE = 256 * 1024;
+
+    private final IPFSHttpAPI api;
+    private final TransferCheckpointStore store;
+
+    public ResumableUploader(IPFSHttpAPI api, TransferCheckpointStore store) {
+        this.api = api;
+        this.store = store;
+    }
+
+    static long chunkSize(long totalSize) {
+        long size = Math.max(MIN_CHUNK_SIZE, (totalSize + MAX_CHUNKS - 1) / MAX_CHUNKS);
+        return (size + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
+    }
+
+    public String upload(String source, FileChannel channel, long totalSize, TransferProgress progress)
+            throws IOException, JSONException {
+        UploadCheckpoint checkpoint = UploadCheckpoint.open(store, source + "@" + api.address(), totalSize,
+                chunkSize(totalSize), fingerprint(channel, totalSize));
+        unpin(checkpoint.staleChunks());
+        if (progress != null) {
+            progress.set(checkpoint.completedChunks() * checkpoint.chunkSize);
+        }
+        for (int i = checkpoint.completedChunks(); i < checkpoint.chunkCount(); i++) {
+            long offset = i * checkpoint.chunkSize;
+            long length = Math.min(checkpoint.chunkSize, totalSize - offset);
+            IPFSHttpAPI.AddedFile added = api.addRegion("chunk" + i, channel, offset, length, null, progress);
+            checkpoint.complete(added.hash, added.size, length);
+        }
+        String root = assemble(checkpoint);
+        checkpoint.clear();
+        return root;
+    }
+
+    static String fingerprint(FileChannel channel, long totalSize) throws IOException {
+        int sample = (int) Math.min(FINGERPRINT_SAMPLE, totalSize);
+        ByteBuffer buffer = ByteBuffer.allocate(sample * 2);
+        readFully(channel, buffer, 0, sample);
+        readFully(channel, buffer, totalSize - sample, sample);
+        return CidCodec.toHex(CidCodec.sha256(buffer.array()));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.limit(buffer.position() + length);
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new EOFException("Source shrank while uploading");
+            }
+            offset += read;
+        }
+    }
+
+    private String assemble(UploadCheckpoint checkpoint) throws IOException, JSONException {
+        List<UploadCheckpoint.Chunk> chunks = checkpoint.chunks();
+        if (chunks.size() == 1) {
+            return chunks.get(0).hash;
+        }
+        List<DagPb.Link> links = new ArrayList<>();
+        long[] blockSizes = new long[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            UploadCheckpoint.Chunk chunk = chunks.get(i);
+            links.add(new DagPb.Link(CidCodec.multihash(chunk.hash), "", chunk.tsize));
+            blockSizes[i] = chunk.length;
+        }
+        byte[] node = DagPb.encodeNode(links, DagPb.unixFsFile(null, checkpoint.totalSize, blockSizes));
+        api.putDagPbNode(node);
+        unpin(chunks);
+        return CidCodec.cidV0(node);
+    }
+
+    private void unpin(List<UploadCheckpoint.Chunk> chunks) {
+        for (UploadCheckpoint.Chunk chunk : chunks) {
+            try {
+                api.unpin(chunk.hash);
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot unpin chunk " + chunk.hash, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ScanVerdictCache {
+    public static final long DEFAULT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final int COMPACT_SLACK = 64;
+    private static final int FORMAT_VERSION = 2;
+
+    private final File logFile;
+    private final Map<String, Verdict> verdicts = new HashMap<>();
+    private long ttlMillis;
+    private int logLines;
+    private boolean loaded;
+
+    public ScanVerdictCache(File logFile, long ttlMillis) {
+        this.logFile = logFile;
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static class Verdict {
+        final VirusTotalClient.ScanResult result;
+        final long size;
+        final long scannedAtMillis;
+
+        Verdict(VirusTotalClient.ScanResult result, long size, long scannedAtMillis) {
+            this.result = result;
+            this.size = size;
+            this.scannedAtMillis = scannedAtMillis;
+        }
+    }
+
+    public synchronized void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public VirusTotalClient.ScanResult forCid(String cid) {
+        return get("cid:" + cid);
+    }
+
+    public VirusTotalClient.ScanResult forSha256(String sha256) {
+        return get("sha256:" + sha256);
+    }
+
+    public void put(String cid, String sha256, long scannedSize, long contentSize,
+                    VirusTotalClient.ScanResult result) {
+        if (result.isError) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cid != null && contentSize >= 0 && scannedSize == contentSize) {
+            record("cid:" + cid, new Verdict(result, scannedSize, now));
+        }
+        if (sha256 != null) {
+            record("sha256:" + sha256, new Verdict(result, scannedSize, now));
+        }
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return verdicts.size();
+    }
+
+    private synchronized VirusTotalClient.ScanResult get(String key) {
+        ensureLoaded();
+        Verdict verdict = verdicts.get(key);
+        if (verdict == null) {
+            return null;
+        }
+        if (isExpired(verdict, System.currentTimeMillis())) {
+            verdicts.remove(key);
+            return null;
+        }
+        return verdict.result;
+    }
+
+    private synchronized void record(String key, Verdict verdict) {
+        ensureLoaded();
+        verdicts.put(key, verdict);
+        try {
+            append(key, verdict);
+            if (logLines > verdicts.size() * 2 + COMPACT_SLACK) {
+                compact();
+            }
+        } catch (IOException | JSONException e) {
+            logFile.delete();
+            logLines = 0;
+        }
+    }
+
+    private boolean isExpired(Verdict verdict, long now) {
+        return now - verdict.scannedAtMillis > ttlMillis;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!logFile.exists()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logLines++;
+                try {
+                    JSONObject entry = new JSONObject(line);
+                    if (entry.optInt("v") != FORMAT_VERSION) {
+                        continue;
+                    }
+                    Verdict verdict = new Verdict(new VirusTotalClient.ScanResult(entry.getInt("malicious"),
+                            entry.getInt("suspicious"), entry.getInt("clean")), entry.getLong("size"),
+                            entry.getLong("at"));
+                    if (!isExpired(verdict, now)) {
+                        verdicts.put(entry.getString("key"), verdict);
+                    }
+                } catch (JSONException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            verdicts.clear();
+            logFile.delete();
+            logLines = 0;
+        }
+    }
+
+    private void append(String key, Verdict verdict) throws IOException, JSONException {
+        File directory = logFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create verdict directory");
+        }
+        try (OutputStream outputStream = new FileOutputStream(logFile, true)) {
+            outputStream.write(encode(key, verdict));
+        }
+        logLines++;
+    }
+
+    private void compact() throws IOException, JSONException {
+        long now = System.currentTimeMillis();
+        File tempFile = new File(logFile.getPath() + ".tmp");
+        int lines = 0;
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            for (Map.Entry<String, Verdict> entry : verdicts.entrySet()) {
+                if (!isExpired(entry.getValue(), now)) {
+                    outputStream.write(encode(entry.getKey(), entry.getValue()));
+                    lines++;
+                }
+            }
+        }
+        if (!tempFile.renameTo(logFile)) {
+            tempFile.delete();
+            throw new IOException("Cannot compact verdict log");
+        }
+        logLines = lines;
+    }
+
+    private static byte[] encode(String key, Verdict verdict) throws JSONException {
+        JSONObject entry = new JSONObject()
+                .put("v", FORMAT_VERSION)
+                .put("key", key)
+                .put("malicious", verdict.result.maliciousCount)
+                .put("suspicious", verdict.result.suspiciousCount)
+                .put("clean", verdict.result.cleanCount)
+                .put("size", verdict.size)
+                .put("at", verdict.scannedAtMillis);
+        return (entry.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
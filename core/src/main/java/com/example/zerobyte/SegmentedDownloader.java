@@ -0,0 +1,132 @@
+package com.example.zerobyte;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+public class SegmentedDownloader {
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+    private static final long MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long SYNC_BYTES = 4 * 1024 * 1024;
+
+    private final CidFetcher fetcher;
+    private final BufferPool bufferPool = BufferPool.shared();
+    private final ExecutorService executor;
+    private final int concurrency;
+
+    public SegmentedDownloader(CidFetcher fetcher, ExecutorService executor, int concurrency) {
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.concurrency = concurrency;
+    }
+
+    public void download(DownloadCheckpoint checkpoint, FileChannel channel, LongConsumer contiguousBytes,
+                         TransferProgress progress) throws IOException, InterruptedException {
+        if (progress != null) {
+            progress.setTotal(checkpoint.totalSize);
+            progress.set(checkpoint.committedBytes());
+        }
+        int segmentCount = checkpoint.segmentCount();
+        AtomicInteger nextSegment = new AtomicInteger();
+        CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(concurrency, segmentCount); i++) {
+            workers.add(completion.submit(() -> {
+                int segment;
+                while ((segment = nextSegment.getAndIncrement()) < segmentCount) {
+                    fetchSegment(checkpoint, segment, channel, contiguousBytes, progress);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                completion.take().get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            for (Future<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+    }
+
+    static long segmentSize(long totalSize, int concurrency) {
+        long size = totalSize / (concurrency * 4L);
+        return Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, size));
+    }
+
+    private void fetchSegment(DownloadCheckpoint checkpoint, int segment, FileChannel channel,
+                              LongConsumer contiguousBytes, TransferProgress progress) throws IOException {
+        long end = checkpoint.segmentOffset(segment) + checkpoint.segmentLength(segment);
+        Set<IPFSClient> tried = new HashSet<>();
+        while (true) {
+            long position = checkpoint.segmentOffset(segment) + checkpoint.committed(segment);
+            if (position == end) {
+                return;
+            }
+            CidFetcher.Fetch fetch = fetcher.open(checkpoint.cid, position, end - position, tried);
+            try (CidFetcher.Fetch open = fetch;
+                 BufferedTransfer transfer = new BufferedTransfer(bufferPool)) {
+                ByteBuffer chunk;
+                long unsynced = 0;
+                while ((chunk = transfer.fill(open.source)) != null) {
+                    int bytesRead = chunk.remaining();
+                    while (chunk.hasRemaining()) {
+                        position += channel.write(chunk, position);
+                    }
+                    unsynced += bytesRead;
+                    if (progress != null) {
+                        progress.add(bytesRead);
+                    }
+                    if (unsynced >= SYNC_BYTES) {
+                        sync(checkpoint, segment, channel, unsynced, contiguousBytes);
+                        unsynced = 0;
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Download cancelled");
+                    }
+                }
+                sync(checkpoint, segment, channel, unsynced, contiguousBytes);
+                if (position != end) {
+                    throw new IOException("Segment " + segment + " ended early");
+                }
+                return;
+            } catch (IOException e) {
+                if (e instanceof InterruptedIOException || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                fetch.node.stats().recordFailure(-1);
+                if (tried.size() >= fetcher.nodeCount()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void sync(DownloadCheckpoint checkpoint, int segment, FileChannel channel, long bytes,
+                             LongConsumer contiguousBytes) throws IOException {
+        if (bytes == 0) {
+            return;
+        }
+        channel.force(false);
+        checkpoint.commit(segment, bytes);
+        if (contiguousBytes != null) {
+            contiguousBytes.accept(checkpoint.contiguousBytes());
+        }
+    }
+}
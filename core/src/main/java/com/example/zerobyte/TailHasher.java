@@ -0,0 +1,85 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+
+public class TailHasher {
+    private final File file;
+    private final MessageDigest digest = CidCodec.newSha256();
+    private long available;
+    private boolean finished;
+    private boolean aborted;
+
+    public TailHasher(File file) {
+        this.file = file;
+    }
+
+    public synchronized void advance(long contiguousBytes) {
+        if (contiguousBytes > available) {
+            available = contiguousBytes;
+            notifyAll();
+        }
+    }
+
+    public synchronized void finish(long totalBytes) {
+        available = totalBytes;
+        finished = true;
+        notifyAll();
+    }
+
+    public synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    public String hash() throws IOException {
+        long hashed = 0;
+        long limit = awaitBeyond(hashed);
+        if (limit < 0) {
+            return CidCodec.toHex(digest.digest());
+        }
+        ByteBuffer buffer = BufferPool.shared().acquire(BufferPool.TIER_SIZES[BufferPool.TIER_SIZES.length - 1]);
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            while (limit >= 0) {
+                while (hashed < limit) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), limit - hashed));
+                    int read = channel.read(buffer, hashed);
+                    if (read <= 0) {
+                        throw new IOException("Quarantine file ended at " + hashed);
+                    }
+                    buffer.flip();
+                    digest.update(buffer);
+                    hashed += read;
+                }
+                limit = awaitBeyond(hashed);
+            }
+            return CidCodec.toHex(digest.digest());
+        } finally {
+            BufferPool.shared().release(buffer);
+        }
+    }
+
+    private synchronized long awaitBeyond(long hashed) throws IOException {
+        while (!aborted && available <= hashed && !finished) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Hashing cancelled");
+            }
+        }
+        if (aborted) {
+            throw new IOException("Download failed");
+        }
+        if (available > hashed) {
+            return available;
+        }
+        return -1;
+    }
+}
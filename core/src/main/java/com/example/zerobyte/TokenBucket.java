@@ -0,0 +1,73 @@
+package com.example.zerobyte;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucket {
+    private final int capacity;
+    private double refillPerMilli;
+    private double tokens;
+    private long lastRefillMillis = System.currentTimeMillis();
+
+    public TokenBucket(int capacity, int refillPerMinute) {
+        this.capacity = capacity;
+        this.tokens = capacity;
+        setRefillPerMinute(refillPerMinute);
+    }
+
+    public synchronized void setRefillPerMinute(int refillPerMinute) {
+        refill();
+        this.refillPerMilli = refillPerMinute / 60_000.0;
+    }
+
+    public synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMilli));
+    }
+
+    public void acquire() throws InterruptedIOException {
+        long waitMillis;
+        while ((waitMillis = tryAcquire()) > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for quota");
+            }
+        }
+    }
+
+    public CompletableFuture<Void> acquireAsync(ScheduledExecutorService timer) {
+        CompletableFuture<Void> acquired = new CompletableFuture<>();
+        acquireLater(acquired, timer);
+        return acquired;
+    }
+
+    private void acquireLater(CompletableFuture<Void> acquired, ScheduledExecutorService timer) {
+        if (acquired.isDone()) {
+            return;
+        }
+        long waitMillis = tryAcquire();
+        if (waitMillis > 0) {
+            timer.schedule(() -> acquireLater(acquired, timer), waitMillis, TimeUnit.MILLISECONDS);
+        } else if (!acquired.complete(null)) {
+            release();
+        }
+    }
+
+    private synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * refillPerMilli);
+        lastRefillMillis = now;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class TransferCheckpointStore {
+    private final File directory;
+
+    public TransferCheckpointStore(File directory) {
+        this.directory = directory;
+    }
+
+    public synchronized JSONObject load(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    public synchronized void save(String key, JSONObject checkpoint) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create checkpoint directory");
+        }
+        File file = fileFor(key);
+        File tempFile = new File(directory, file.getName() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            outputStream.write(checkpoint.toString().getBytes(StandardCharsets.UTF_8));
+            outputStream.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Cannot write checkpoint");
+        }
+    }
+
+    public synchronized void delete(String key) {
+        fileFor(key).delete();
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, CidCodec.toHex(CidCodec.sha256(key.getBytes(StandardCharsets.UTF_8))) + ".json");
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.zerobyte;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+public class TransferHandle {
+    private final TransferScheduler scheduler;
+    private final TransferProgress progress = new TransferProgress();
+    private Future<?> running;
+    private TransferScheduler.Task queued;
+    private Object stage;
+    private boolean cancelled;
+    private boolean done;
+    private final List<Runnable> doneListeners = new ArrayList<>();
+
+    TransferHandle(TransferScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public boolean cancel() {
+        Future<?> future;
+        TransferScheduler.Task task;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            future = running;
+            task = queued;
+        }
+        if (task != null) {
+            scheduler.remove(task);
+        }
+        if (future != null) {
+            future.cancel(true);
+        }
+        finish(null);
+        return true;
+    }
+
+    public TransferProgress progress() {
+        return progress;
+    }
+
+    public IPFSClient node() {
+        TransferScheduler.Task task = runningTask();
+        return task != null ? task.node : null;
+    }
+
+    void bind(IPFSClient node) {
+        TransferScheduler.Task task = runningTask();
+        if (task != null) {
+            scheduler.rebind(task, node);
+        }
+    }
+
+    private synchronized TransferScheduler.Task runningTask() {
+        return running != null && stage instanceof TransferScheduler.Task ? (TransferScheduler.Task) stage : null;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    public void whenDone(Runnable listener) {
+        synchronized (this) {
+            if (!done) {
+                doneListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    synchronized boolean queue(TransferScheduler.Task task) {
+        if (cancelled) {
+            return false;
+        }
+        stage = task;
+        queued = task;
+        running = null;
+        return true;
+    }
+
+    synchronized boolean start(Object owner, Future<?> future) {
+        if (cancelled) {
+            return false;
+        }
+        stage = owner;
+        queued = null;
+        running = future;
+        return true;
+    }
+
+    void finish(Object owner) {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (done || (owner != null && owner != stage)) {
+                return;
+            }
+            done = true;
+            running = null;
+            queued = null;
+            listeners = new ArrayList<>(doneListeners);
+            doneListeners.clear();
+        }
+        progress.finish();
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
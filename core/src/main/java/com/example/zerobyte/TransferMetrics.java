@@ -0,0 +1,170 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TransferMetrics {
+    public static final String UPLOAD_QUEUE = "upload.queue_us";
+    public static final String UPLOAD_TIME = "upload.total_us";
+    public static final String UPLOAD_THROUGHPUT = "upload.bytes_per_sec";
+    public static final String UPLOAD_BYTES = "upload.bytes";
+    public static final String UPLOAD_FAILURES = "upload.failures";
+    public static final String UPLOAD_DEDUPLICATED = "upload.deduplicated";
+    public static final String UPLOAD_DEDUPLICATED_BYTES = "upload.deduplicated.bytes";
+    public static final String DOWNLOAD_QUEUE = "download.queue_us";
+    public static final String DOWNLOAD_TTFB = "download.ttfb_us";
+    public static final String DOWNLOAD_TIME = "download.total_us";
+    public static final String DOWNLOAD_THROUGHPUT = "download.bytes_per_sec";
+    public static final String DOWNLOAD_BYTES = "download.bytes";
+    public static final String DOWNLOAD_FAILURES = "download.failures";
+    public static final String DOWNLOAD_CACHE_HITS = "download.cache_hits";
+    public static final String NODE_RETRIES = "ipfs.retries";
+    public static final String HEALTH_CHECK = "health.rtt_us";
+    public static final String HEALTH_FAILURES = "health.failures";
+    public static final String SCAN_HASH = "scan.hash_us";
+    public static final String SCAN_LOOKUP = "scan.lookup_us";
+    public static final String SCAN_UPLOAD = "scan.upload_us";
+    public static final String SCAN_UPLOAD_BYTES = "scan.upload.bytes";
+    public static final String SCAN_POLL = "scan.poll_us";
+    public static final String SCAN_POLL_ATTEMPTS = "scan.poll.attempts";
+    public static final String SCAN_POLL_FAILURES = "scan.poll.failures";
+    public static final String SCAN_QUOTA_WAIT = "scan.quota_wait_us";
+
+    private static final TransferMetrics SHARED = new TransferMetrics();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public static TransferMetrics shared() {
+        return SHARED;
+    }
+
+    public static class Snapshot {
+        public final long takenAtMillis;
+        public final Map<String, LatencyHistogram.Snapshot> histograms;
+        public final Map<String, Long> counters;
+
+        Snapshot(long takenAtMillis, Map<String, LatencyHistogram.Snapshot> histograms, Map<String, Long> counters) {
+            this.takenAtMillis = takenAtMillis;
+            this.histograms = histograms;
+            this.counters = counters;
+        }
+
+        public JSONObject toJson() throws JSONException {
+            JSONObject histogramJson = new JSONObject();
+            for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+                LatencyHistogram.Snapshot histogram = entry.getValue();
+                histogramJson.put(entry.getKey(), new JSONObject()
+                        .put("count", histogram.count)
+                        .put("min", histogram.min)
+                        .put("mean", histogram.mean)
+                        .put("p50", histogram.p50)
+                        .put("p90", histogram.p90)
+                        .put("p99", histogram.p99)
+                        .put("p999", histogram.p999)
+                        .put("max", histogram.max));
+            }
+            JSONObject counterJson = new JSONObject();
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                counterJson.put(entry.getKey(), entry.getValue());
+            }
+            return new JSONObject()
+                    .put("takenAtMillis", takenAtMillis)
+                    .put("histograms", histogramJson)
+                    .put("counters", counterJson);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+                LatencyHistogram.Snapshot histogram = entry.getValue();
+                text.append(String.format(Locale.US, "%s n=%d p50=%d p90=%d p99=%d max=%d%n", entry.getKey(),
+                        histogram.count, histogram.p50, histogram.p90, histogram.p99, histogram.max));
+            }
+            for (Map.Entry<String, Long> entry : counters.entrySet()) {
+                text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void record(String name, long value) {
+        histogram(name).record(value);
+    }
+
+    public void recordSince(String name, long startNanos) {
+        record(name, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public void recordTransfer(String timeName, String throughputName, String bytesName, long startNanos,
+                               long bytes) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        record(timeName, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        if (bytes > 0) {
+            increment(bytesName, bytes);
+            if (elapsedNanos > 0) {
+                record(throughputName, bytes * 1_000_000_000L / elapsedNanos);
+            }
+        }
+    }
+
+    public void increment(String name) {
+        increment(name, 1);
+    }
+
+    public void increment(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public long counter(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> histogramSnapshots = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            histogramSnapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().get());
+        }
+        return new Snapshot(System.currentTimeMillis(), Collections.unmodifiableMap(histogramSnapshots),
+                Collections.unmodifiableMap(counterValues));
+    }
+
+    public void dump(File file) throws IOException {
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(snapshot().toJson().toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+    }
+}
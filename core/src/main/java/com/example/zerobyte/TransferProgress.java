@@ -0,0 +1,180 @@
+package com.example.zerobyte;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TransferProgress {
+    public static final int DEFAULT_UPDATES_PER_SECOND = 4;
+    private static final double SMOOTHING_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicBoolean posted = new AtomicBoolean();
+    private volatile long totalBytes = TransferScheduler.UNKNOWN_SIZE;
+    private volatile Listener listener;
+    private volatile Executor executor;
+    private volatile long intervalNanos;
+    private volatile long nextUpdateNanos;
+    private volatile boolean finished;
+    private long sampleNanos;
+    private long sampleBytes;
+    private double bytesPerSecond;
+    private double smoothedBytesPerSecond;
+
+    public interface Listener {
+        void onProgress(Snapshot progress);
+    }
+
+    public static class Snapshot {
+        public final long bytesDone;
+        public final long totalBytes;
+        public final double bytesPerSecond;
+        public final double smoothedBytesPerSecond;
+        public final long etaMillis;
+        public final boolean finished;
+
+        Snapshot(long bytesDone, long totalBytes, double bytesPerSecond, double smoothedBytesPerSecond,
+                 long etaMillis, boolean finished) {
+            this.bytesDone = bytesDone;
+            this.totalBytes = totalBytes;
+            this.bytesPerSecond = bytesPerSecond;
+            this.smoothedBytesPerSecond = smoothedBytesPerSecond;
+            this.etaMillis = etaMillis;
+            this.finished = finished;
+        }
+
+        public int percent() {
+            if (totalBytes <= 0) {
+                return finished ? 100 : -1;
+            }
+            return (int) Math.min(100, bytesDone * 100 / totalBytes);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            if (percent() >= 0) {
+                text.append(percent()).append("%, ");
+            }
+            text.append(formatBytes(bytesDone));
+            if (totalBytes > 0) {
+                text.append(" of ").append(formatBytes(totalBytes));
+            }
+            if (!finished && smoothedBytesPerSecond > 0) {
+                text.append(", ").append(formatBytes((long) smoothedBytesPerSecond)).append("/s");
+            }
+            if (!finished && etaMillis >= 0) {
+                text.append(", ").append(formatDuration(etaMillis)).append(" left");
+            }
+            return text.toString();
+        }
+    }
+
+    public void setTotal(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public void add(long bytes) {
+        bytesDone.addAndGet(bytes);
+        publishIfDue();
+    }
+
+    public void set(long bytes) {
+        bytesDone.set(bytes);
+        publishIfDue();
+    }
+
+    public long bytesDone() {
+        return bytesDone.get();
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void listen(Listener listener, Executor executor) {
+        listen(listener, executor, DEFAULT_UPDATES_PER_SECOND);
+    }
+
+    public void listen(Listener listener, Executor executor, int maxUpdatesPerSecond) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxUpdatesPerSecond);
+        this.executor = executor;
+        this.listener = listener;
+        publish();
+    }
+
+    void finish() {
+        finished = true;
+        publish();
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long done = bytesDone.get();
+        long elapsed = now - sampleNanos;
+        if (sampleNanos == 0) {
+            sampleNanos = now;
+            sampleBytes = done;
+        } else if (elapsed > 0) {
+            bytesPerSecond = Math.max(0, done - sampleBytes) * 1e9 / elapsed;
+            double weight = 1 - Math.exp(-elapsed / SMOOTHING_NANOS);
+            smoothedBytesPerSecond = smoothedBytesPerSecond == 0 ? bytesPerSecond
+                    : smoothedBytesPerSecond + weight * (bytesPerSecond - smoothedBytesPerSecond);
+            sampleNanos = now;
+            sampleBytes = done;
+        }
+        long total = totalBytes;
+        long eta = total > 0 && smoothedBytesPerSecond > 0
+                ? (long) (Math.max(0, total - done) * 1000 / smoothedBytesPerSecond) : -1;
+        return new Snapshot(done, total, bytesPerSecond, smoothedBytesPerSecond, eta, finished);
+    }
+
+    private void publishIfDue() {
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - nextUpdateNanos < 0) {
+            return;
+        }
+        nextUpdateNanos = now + intervalNanos;
+        publish();
+    }
+
+    private void publish() {
+        Listener target = listener;
+        if (target == null || !posted.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            posted.set(false);
+            target.onProgress(snapshot());
+        });
+    }
+
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.US, "%.1f %sB", bytes / (double) (1L << (unit * 10)),
+                "KMGTPE".charAt(unit - 1));
+    }
+
+    public static String formatDuration(long millis) {
+        long seconds = (millis + 999) / 1000;
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return String.format(Locale.US, "%dm %02ds", seconds / 60, seconds % 60);
+        }
+        return String.format(Locale.US, "%dh %02dm", seconds / 3600, seconds % 3600 / 60);
+    }
+}
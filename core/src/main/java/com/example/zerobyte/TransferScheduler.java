@@ -0,0 +1,229 @@
+package com.example.zerobyte;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+public class TransferScheduler {
+    public static final long UNKNOWN_SIZE = -1;
+    private static final long STARVATION_MILLIS = 30_000;
+
+    private final ExecutorService controlExecutor;
+    private final ExecutorService bulkExecutor;
+    private final int maxTransfers;
+    private final int maxTransfersPerNode;
+    private final List<Task> waiting = new ArrayList<>();
+    private final Map<IPFSClient, Integer> activePerNode = new HashMap<>();
+    private int activeTransfers;
+    private long nextSequence;
+
+    public TransferScheduler(ExecutorService controlExecutor, ExecutorService bulkExecutor,
+                             int maxTransfers, int maxTransfersPerNode) {
+        this.controlExecutor = controlExecutor;
+        this.bulkExecutor = bulkExecutor;
+        this.maxTransfers = maxTransfers;
+        this.maxTransfersPerNode = maxTransfersPerNode;
+    }
+
+    static class Task {
+        final TransferHandle handle;
+        final Collection<IPFSClient> nodes;
+        final long sizeHint;
+        final Runnable body;
+        final long queuedAtMillis = System.currentTimeMillis();
+        long sequence;
+        volatile IPFSClient node;
+        boolean released;
+
+        Task(TransferHandle handle, Collection<IPFSClient> nodes, long sizeHint, Runnable body) {
+            this.handle = handle;
+            this.nodes = nodes;
+            this.sizeHint = sizeHint;
+            this.body = body;
+        }
+
+        long priority(long nowMillis) {
+            if (nowMillis - queuedAtMillis >= STARVATION_MILLIS) {
+                return -1;
+            }
+            return sizeHint < 0 ? Long.MAX_VALUE : sizeHint;
+        }
+    }
+
+    public TransferHandle control(Runnable body) {
+        return control(new TransferHandle(this), body);
+    }
+
+    public TransferHandle control(TransferHandle handle, Runnable body) {
+        FutureTask<Void> future = new FutureTask<Void>(body, null) {
+            @Override
+            protected void done() {
+                handle.finish(this);
+            }
+        };
+        if (handle.start(future, future)) {
+            controlExecutor.execute(future);
+        }
+        return handle;
+    }
+
+    public TransferHandle bulk(Collection<IPFSClient> nodes, long sizeHint, Runnable body) {
+        return bulk(new TransferHandle(this), nodes, sizeHint, body);
+    }
+
+    public TransferHandle bulk(TransferHandle handle, Collection<IPFSClient> nodes, long sizeHint, Runnable body) {
+        Task task = new Task(handle, nodes, sizeHint, body);
+        synchronized (this) {
+            if (!handle.queue(task)) {
+                return handle;
+            }
+            task.sequence = nextSequence++;
+            waiting.add(task);
+        }
+        dispatch();
+        return handle;
+    }
+
+    public synchronized int queuedTransfers() {
+        return waiting.size();
+    }
+
+    public synchronized int activeTransfers() {
+        return activeTransfers;
+    }
+
+    public synchronized int activeTransfers(IPFSClient node) {
+        Integer active = activePerNode.get(node);
+        return active != null ? active : 0;
+    }
+
+    synchronized boolean hasFreeSlot(IPFSClient node) {
+        return activeTransfers(node) < maxTransfersPerNode;
+    }
+
+    synchronized boolean tryAcquireHedgeSlot(IPFSClient node) {
+        if (!hasFreeSlot(node)) {
+            return false;
+        }
+        acquireSlot(node);
+        return true;
+    }
+
+    void releaseHedgeSlot(IPFSClient node) {
+        synchronized (this) {
+            releaseSlot(node);
+        }
+        dispatch();
+    }
+
+    synchronized void remove(Task task) {
+        waiting.remove(task);
+    }
+
+    private void dispatch() {
+        List<Task> ready = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            waiting.sort(Comparator.<Task>comparingLong(task -> task.priority(now))
+                    .thenComparingLong(task -> task.sequence));
+            Iterator<Task> iterator = waiting.iterator();
+            while (activeTransfers < maxTransfers && iterator.hasNext()) {
+                Task task = iterator.next();
+                IPFSClient node = leastLoaded(task.nodes);
+                if (node == null && !task.nodes.isEmpty()) {
+                    continue;
+                }
+                iterator.remove();
+                activeTransfers++;
+                task.node = node;
+                acquireSlot(node);
+                ready.add(task);
+            }
+        }
+        for (Task task : ready) {
+            FutureTask<Void> future = new FutureTask<Void>(task.body, null) {
+                @Override
+                protected void done() {
+                    release(task);
+                    task.handle.finish(task);
+                }
+            };
+            if (task.handle.start(task, future)) {
+                bulkExecutor.execute(future);
+            } else {
+                release(task);
+            }
+        }
+    }
+
+    private IPFSClient leastLoaded(Collection<IPFSClient> nodes) {
+        IPFSClient best = null;
+        for (IPFSClient node : nodes) {
+            if (activeTransfers(node) < maxTransfersPerNode && (best == null || isPreferred(node, best))) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private boolean isPreferred(IPFSClient node, IPFSClient other) {
+        boolean available = node.stats().isAvailable();
+        if (available != other.stats().isAvailable()) {
+            return available;
+        }
+        int active = activeTransfers(node);
+        int otherActive = activeTransfers(other);
+        if (active != otherActive) {
+            return active < otherActive;
+        }
+        return node.stats().score() < other.stats().score();
+    }
+
+    private void acquireSlot(IPFSClient node) {
+        if (node != null) {
+            activePerNode.put(node, activeTransfers(node) + 1);
+        }
+    }
+
+    private void releaseSlot(IPFSClient node) {
+        if (node == null) {
+            return;
+        }
+        int active = activeTransfers(node) - 1;
+        if (active > 0) {
+            activePerNode.put(node, active);
+        } else {
+            activePerNode.remove(node);
+        }
+    }
+
+    void rebind(Task task, IPFSClient node) {
+        synchronized (this) {
+            if (task.released || task.node == node) {
+                return;
+            }
+            releaseSlot(task.node);
+            acquireSlot(node);
+            task.node = node;
+        }
+        dispatch();
+    }
+
+    private void release(Task task) {
+        synchronized (this) {
+            if (task.released) {
+                return;
+            }
+            task.released = true;
+            activeTransfers--;
+            releaseSlot(task.node);
+        }
+        dispatch();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.zerobyte;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface TransferSource {
+    String name();
+
+    String key();
+
+    long size();
+
+    long lastModified();
+
+    InputStream open() throws IOException;
+
+    static TransferSource forFile(File file) {
+        return new TransferSource() {
+            @Override
+            public String name() {
+                return file.getName();
+            }
+
+            @Override
+            public String key() {
+                return file.getAbsolutePath();
+            }
+
+            @Override
+            public long size() {
+                return file.isFile() ? file.length() : TransferScheduler.UNKNOWN_SIZE;
+            }
+
+            @Override
+            public long lastModified() {
+                return file.lastModified();
+            }
+
+            @Override
+            public InputStream open() throws IOException {
+                return new FileInputStream(file);
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.zerobyte;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UploadCheckpoint {
+    public final long totalSize;
+    public final long chunkSize;
+    private final String fingerprint;
+    private final List<Chunk> chunks;
+    private final List<Chunk> staleChunks;
+    private final TransferCheckpointStore store;
+    private final String key;
+
+    public static class Chunk {
+        public final String hash;
+        public final long tsize;
+        public final long length;
+
+        Chunk(String hash, long tsize, long length) {
+            this.hash = hash;
+            this.tsize = tsize;
+            this.length = length;
+        }
+    }
+
+    private UploadCheckpoint(TransferCheckpointStore store, String key, long totalSize, long chunkSize,
+                             String fingerprint, List<Chunk> chunks, List<Chunk> staleChunks) {
+        this.store = store;
+        this.key = key;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.fingerprint = fingerprint;
+        this.chunks = chunks;
+        this.staleChunks = staleChunks;
+    }
+
+    public static UploadCheckpoint open(TransferCheckpointStore store, String source, long totalSize,
+                                        long chunkSize, String fingerprint) {
+        String key = "upload:" + source;
+        JSONObject saved = store.load(key);
+        List<Chunk> staleChunks = new ArrayList<>();
+        if (saved != null) {
+            try {
+                List<Chunk> chunks = chunks(saved.getJSONArray("chunks"));
+                if (saved.getLong("totalSize") == totalSize && saved.getLong("chunkSize") == chunkSize
+                        && fingerprint.equals(saved.getString("fingerprint"))) {
+                    return new UploadCheckpoint(store, key, totalSize, chunkSize, fingerprint, chunks,
+                            staleChunks);
+                }
+                staleChunks = chunks;
+            } catch (JSONException ignored) {
+            }
+            store.delete(key);
+        }
+        return new UploadCheckpoint(store, key, totalSize, chunkSize, fingerprint, new ArrayList<>(), staleChunks);
+    }
+
+    private static List<Chunk> chunks(JSONArray savedChunks) throws JSONException {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < savedChunks.length(); i++) {
+            JSONObject chunk = savedChunks.getJSONObject(i);
+            chunks.add(new Chunk(chunk.getString("hash"), chunk.getLong("tsize"), chunk.getLong("length")));
+        }
+        return chunks;
+    }
+
+    public int chunkCount() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    public int completedChunks() {
+        return chunks.size();
+    }
+
+    public List<Chunk> chunks() {
+        return chunks;
+    }
+
+    public List<Chunk> staleChunks() {
+        return staleChunks;
+    }
+
+    public void complete(String hash, long tsize, long length) throws IOException {
+        chunks.add(new Chunk(hash, tsize, length));
+        try {
+            JSONArray savedChunks = new JSONArray();
+            for (Chunk chunk : chunks) {
+                savedChunks.put(new JSONObject()
+                        .put("hash", chunk.hash)
+                        .put("tsize", chunk.tsize)
+                        .put("length", chunk.length));
+            }
+            store.save(key, new JSONObject()
+                    .put("totalSize", totalSize)
+                    .put("chunkSize", chunkSize)
+                    .put("fingerprint", fingerprint)
+                    .put("chunks", savedChunks));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void clear() {
+        store.delete(key);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class UploadIndex {
+    private static final int COMPACT_SLACK = 64;
+
+    private final File logFile;
+    private final Map<String, String> uploads = new HashMap<>();
+    private int logLines;
+    private boolean loaded;
+
+    public UploadIndex(File logFile) {
+        this.logFile = logFile;
+    }
+
+    public synchronized String get(String localCid, String nodeAddress) {
+        ensureLoaded();
+        return uploads.get(key(localCid, nodeAddress));
+    }
+
+    public void put(String localCid, String nodeAddress, String cid) {
+        record(key(localCid, nodeAddress), cid);
+    }
+
+    public void remove(String localCid, String nodeAddress) {
+        record(key(localCid, nodeAddress), null);
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return uploads.size();
+    }
+
+    private static String key(String localCid, String nodeAddress) {
+        return localCid + " " + nodeAddress;
+    }
+
+    private synchronized void record(String key, String cid) {
+        ensureLoaded();
+        if (cid == null ? !uploads.containsKey(key) : cid.equals(uploads.get(key))) {
+            return;
+        }
+        if (cid == null) {
+            uploads.remove(key);
+        } else {
+            uploads.put(key, cid);
+        }
+        try {
+            append(key, cid);
+            if (logLines > uploads.size() * 2 + COMPACT_SLACK) {
+                compact();
+            }
+        } catch (IOException | JSONException e) {
+            logFile.delete();
+            logLines = 0;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!logFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logLines++;
+                try {
+                    JSONObject entry = new JSONObject(line);
+                    String key = entry.getString("key");
+                    if (entry.has("cid")) {
+                        uploads.put(key, entry.getString("cid"));
+                    } else {
+                        uploads.remove(key);
+                    }
+                } catch (JSONException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            uploads.clear();
+            logFile.delete();
+            logLines = 0;
+        }
+    }
+
+    private void append(String key, String cid) throws IOException, JSONException {
+        File directory = logFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create upload index directory");
+        }
+        try (OutputStream outputStream = new FileOutputStream(logFile, true)) {
+            outputStream.write(encode(key, cid));
+        }
+        logLines++;
+    }
+
+    private void compact() throws IOException, JSONException {
+        File tempFile = new File(logFile.getPath() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            for (Map.Entry<String, String> entry : uploads.entrySet()) {
+                outputStream.write(encode(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (!tempFile.renameTo(logFile)) {
+            tempFile.delete();
+            throw new IOException("Cannot compact upload index");
+        }
+        logLines = uploads.size();
+    }
+
+    private static byte[] encode(String key, String cid) throws JSONException {
+        JSONObject entry = new JSONObject().put("key", key);
+        if (cid != null) {
+            entry.put("cid", cid);
+        }
+        return (entry.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
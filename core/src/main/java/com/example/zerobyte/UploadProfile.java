@@ -0,0 +1,55 @@
+package com.example.zerobyte;
+
+public class UploadProfile {
+    public static final UploadProfile DEFAULT = new UploadProfile("default", "size-262144", false, 0, false);
+    public static final UploadProfile MODERN = new UploadProfile("modern", "size-1048576", true, 1, false);
+    public static final UploadProfile DEDUP = new UploadProfile("dedup", "buzhash", true, 1, false);
+    public static final UploadProfile MEDIA = new UploadProfile("media", "size-1048576", true, 1, true);
+
+    public final String name;
+    public final String chunker;
+    public final boolean rawLeaves;
+    public final int cidVersion;
+    public final boolean trickle;
+
+    public UploadProfile(String name, String chunker, boolean rawLeaves, int cidVersion, boolean trickle) {
+        if (cidVersion != 0 && cidVersion != 1) {
+            throw new IllegalArgumentException("Unsupported CID version: " + cidVersion);
+        }
+        if (cidVersion == 0 && rawLeaves) {
+            throw new IllegalArgumentException("Raw leaves require CIDv1");
+        }
+        this.name = name;
+        this.chunker = chunker;
+        this.rawLeaves = rawLeaves;
+        this.cidVersion = cidVersion;
+        this.trickle = trickle;
+    }
+
+    public static UploadProfile[] all() {
+        return new UploadProfile[] {DEFAULT, MODERN, DEDUP, MEDIA};
+    }
+
+    public static UploadProfile named(String name) {
+        for (UploadProfile profile : all()) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown upload profile: " + name);
+    }
+
+    public int fixedChunkSize() {
+        if (chunker.startsWith("size-")) {
+            try {
+                return Integer.parseInt(chunker.substring(5));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return -1;
+    }
+
+    public boolean isLocallyComputable() {
+        return fixedChunkSize() > 0 && !trickle;
+    }
+}
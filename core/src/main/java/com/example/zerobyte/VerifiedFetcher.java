@@ -0,0 +1,125 @@
+package com.example.zerobyte;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+public class VerifiedFetcher {
+    private static final int PREFETCH_WINDOW = 8;
+
+    private final IPFSNodeRouter router;
+    private final ExecutorService executor;
+
+    public VerifiedFetcher(IPFSNodeRouter router, ExecutorService executor) {
+        this.router = router;
+        this.executor = executor;
+    }
+
+    public static class VerificationException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final String cid;
+
+        VerificationException(String message, String cid) {
+            super(message);
+            this.cid = cid;
+        }
+    }
+
+    private static class BlockRef {
+        final byte[] cid;
+
+        BlockRef(byte[] cid) {
+            this.cid = cid;
+        }
+    }
+
+    public long fetch(String cid, WritableByteChannel target, LongConsumer contiguousBytes)
+            throws IOException, InterruptedException {
+        Deque<BlockRef> pending = new ArrayDeque<>();
+        Map<BlockRef, Future<byte[]>> inFlight = new HashMap<>();
+        try {
+            pending.add(new BlockRef(CidCodec.cidBytes(cid)));
+        } catch (IllegalArgumentException e) {
+            throw new VerificationException("Unsupported CID " + cid, cid);
+        }
+        long written = 0;
+        try {
+            while (!pending.isEmpty()) {
+                prefetch(pending, inFlight);
+                BlockRef ref = pending.pollFirst();
+                byte[] block = await(inFlight.remove(ref));
+                String blockCid = CidCodec.toCidString(ref.cid);
+                byte[] multihash = CidCodec.multihashOf(ref.cid);
+                if (!CidCodec.isSha256(multihash)) {
+                    throw new VerificationException("Block " + blockCid + " uses an unsupported hash", blockCid);
+                }
+                if (!CidCodec.matches(multihash, block)) {
+                    throw new VerificationException("Block " + blockCid + " does not match its hash", blockCid);
+                }
+                byte[] content;
+                if (CidCodec.codec(ref.cid) == CidCodec.CODEC_RAW) {
+                    content = block;
+                } else {
+                    DagPb.Node node = DagPb.decodeNode(block);
+                    DagPb.UnixFsData data = DagPb.decodeUnixFs(node.data != null ? node.data : new byte[0]);
+                    if (data.type != DagPb.UNIXFS_FILE && data.type != DagPb.UNIXFS_RAW) {
+                        throw new VerificationException(blockCid + " is not a file", blockCid);
+                    }
+                    content = data.content;
+                    List<DagPb.Link> links = node.links;
+                    for (int i = links.size() - 1; i >= 0; i--) {
+                        pending.addFirst(new BlockRef(links.get(i).hash));
+                    }
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(content);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                written += content.length;
+                if (contiguousBytes != null && content.length > 0) {
+                    contiguousBytes.accept(written);
+                }
+            }
+            return written;
+        } finally {
+            for (Future<byte[]> future : inFlight.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void prefetch(Deque<BlockRef> pending, Map<BlockRef, Future<byte[]>> inFlight) {
+        Iterator<BlockRef> iterator = pending.iterator();
+        for (int i = 0; i < PREFETCH_WINDOW && iterator.hasNext(); i++) {
+            BlockRef ref = iterator.next();
+            if (!inFlight.containsKey(ref)) {
+                String blockCid = CidCodec.toCidString(ref.cid);
+                inFlight.put(ref, executor.submit(() -> router.execute(api -> api.blockGet(blockCid))));
+            }
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedIOException) {
+                throw new InterruptedException(cause.getMessage());
+            }
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+public class VirusTotalClient {
+    private static final Logger log = Logger.getLogger("VirusTotal");
+    private static final String UPLOAD_URL = "https://www.virustotal.com/api/v3/files";
+    private static final String UPLOAD_URL_ENDPOINT = "https://www.virustotal.com/api/v3/files/upload_url";
+    private static final long DIRECT_UPLOAD_LIMIT = 32L * 1024 * 1024;
+    private static final String FILE_REPORT_URL = "https://www.virustotal.com/api/v3/files/%s";
+
+    private static final int PUBLIC_REQUESTS_PER_MINUTE = 4;
+
+    private static final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .writeTimeout(60, TimeUnit.SECONDS)
+            .eventListenerFactory(MetricsEventListener.factory(TransferMetrics.shared(), "virustotal.http"))
+            .build();
+    private static final TokenBucket quota = new TokenBucket(PUBLIC_REQUESTS_PER_MINUTE, PUBLIC_REQUESTS_PER_MINUTE);
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "virustotal-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService scanExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "virustotal-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final VirusTotalPoller poller = new VirusTotalPoller(client, "", quota, timer);
+    private static volatile String apiKey = "";
+
+    private VirusTotalClient() {
+    }
+
+    public static void setApiKey(String key) {
+        apiKey = key != null ? key : "";
+        poller.setApiKey(apiKey);
+    }
+
+    private static String apiKey() throws IOException {
+        String key = apiKey;
+        if (key.isEmpty()) {
+            throw new IOException("VirusTotal API key is not configured");
+        }
+        return key;
+    }
+
+    public static void setRequestsPerMinute(int requestsPerMinute) {
+        quota.setRefillPerMinute(requestsPerMinute);
+    }
+
+    public static ScanResult scan(TransferSource source, String cid, ScanVerdictCache verdicts) {
+        try {
+            return scanAsync(source, cid, TransferScheduler.UNKNOWN_SIZE, null, verdicts, null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ScanResult("Scan cancelled", true);
+        } catch (ExecutionException e) {
+            return new ScanResult("Scan failed: " + e.getCause().getMessage(), true);
+        }
+    }
+
+    public static CompletableFuture<ScanResult> scanAsync(TransferSource source, String cid, long contentSize,
+                                                          String knownSha256, ScanVerdictCache verdicts,
+                                                          TransferProgress progress) {
+        CompletableFuture<ScanResult> scan = new CompletableFuture<>();
+        Future<?> worker = scanExecutor.submit(() -> {
+            try {
+                ScanResult result = verdicts != null && cid != null ? verdicts.forCid(cid) : null;
+                if (result != null) {
+                    scan.complete(result);
+                    return;
+                }
+                long hashStart = System.nanoTime();
+                String sha256 = knownSha256 != null ? knownSha256 : sha256(source);
+                if (knownSha256 == null) {
+                    TransferMetrics.shared().recordSince(TransferMetrics.SCAN_HASH, hashStart);
+                }
+                long scannedSize = source.size();
+                result = verdicts != null ? verdicts.forSha256(sha256) : null;
+                if (result != null) {
+                    remember(verdicts, cid, sha256, scannedSize, contentSize, result);
+                    scan.complete(result);
+                    return;
+                }
+                CompletableFuture<ScanResult> remote = withQuota(scan, () -> {
+                    long lookupStart = System.nanoTime();
+                    ScanResult found = lookup(sha256);
+                    TransferMetrics.shared().recordSince(TransferMetrics.SCAN_LOOKUP, lookupStart);
+                    return found;
+                }).thenCompose(found -> found != null ? CompletableFuture.completedFuture(found)
+                        : uploadAsync(scan, source, progress).thenCompose(analysisId -> analysisId != null
+                                ? awaitAnalysis(analysisId)
+                                : CompletableFuture.completedFuture(new ScanResult("Upload failed", true))));
+                scan.whenComplete((ignored, error) -> remote.cancel(true));
+                remote.whenComplete((scanned, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        log.log(Level.SEVERE, "Scan error", cause);
+                        scan.complete(new ScanResult("Scan failed: " + cause.getMessage(), true));
+                        return;
+                    }
+                    remember(verdicts, cid, sha256, scannedSize, contentSize, scanned);
+                    scan.complete(scanned);
+                });
+            } catch (Exception e) {
+                log.log(Level.SEVERE, "Scan error", e);
+                scan.complete(new ScanResult("Scan failed: " + e.getMessage(), true));
+            }
+        });
+        scan.whenComplete((result, error) -> {
+            if (scan.isCancelled()) {
+                worker.cancel(true);
+            }
+            if (progress != null) {
+                progress.finish();
+            }
+        });
+        return scan;
+    }
+
+    public static CompletableFuture<ScanResult> awaitAnalysis(String analysisId) {
+        CompletableFuture<ScanResult> analysis = new CompletableFuture<>();
+        CompletableFuture<String> report = poller.poll(analysisId);
+        analysis.whenComplete((ignored, error) -> report.cancel(true));
+        report.whenComplete((scanReport, error) -> {
+            if (error != null) {
+                analysis.complete(new ScanResult(error instanceof TimeoutException
+                        ? "Scan timeout" : "Scan failed: " + error.getMessage(), true));
+                return;
+            }
+            try {
+                analysis.complete(analyzeScanReport(scanReport));
+            } catch (JSONException e) {
+                analysis.complete(new ScanResult("Scan failed: " + e.getMessage(), true));
+            }
+        });
+        return analysis;
+    }
+
+    private static void remember(ScanVerdictCache verdicts, String cid, String sha256, long scannedSize,
+                                 long contentSize, ScanResult result) {
+        if (verdicts != null) {
+            verdicts.put(cid, sha256, scannedSize, contentSize, result);
+        }
+    }
+
+    public static String sha256(TransferSource source) throws IOException {
+        try (InputStream inputStream = open(source)) {
+            return VirusTotalCodec.sha256(inputStream);
+        }
+    }
+
+    public static ScanResult lookupFile(String sha256) throws IOException, JSONException {
+        acquireQuota();
+        return lookup(sha256);
+    }
+
+    private static ScanResult lookup(String sha256) throws IOException, JSONException {
+        Request request = new Request.Builder()
+                .url(String.format(Locale.US, FILE_REPORT_URL, sha256))
+                .get()
+                .addHeader("x-apikey", apiKey())
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() == 404) {
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("Lookup failed: " + response.code());
+            }
+            JSONObject stats = VirusTotalCodec.attributes(response.body().string())
+                    .optJSONObject("last_analysis_stats");
+            if (stats == null || stats.length() == 0) {
+                return null;
+            }
+            return new ScanResult(
+                    stats.optInt("malicious"),
+                    stats.optInt("suspicious"),
+                    stats.optInt("undetected")
+            );
+        }
+    }
+
+    public static String uploadFile(TransferSource source, TransferProgress progress)
+            throws IOException, JSONException {
+        long size = source.size();
+        String url = size < 0 || size > DIRECT_UPLOAD_LIMIT ? requestUploadUrl() : UPLOAD_URL;
+        acquireQuota();
+        return upload(source, size, url, progress);
+    }
+
+    private static CompletableFuture<String> uploadAsync(CompletableFuture<?> scan, TransferSource source,
+                                                         TransferProgress progress) {
+        long size = source.size();
+        CompletableFuture<String> url = size < 0 || size > DIRECT_UPLOAD_LIMIT
+                ? withQuota(scan, VirusTotalClient::fetchUploadUrl) : CompletableFuture.completedFuture(UPLOAD_URL);
+        return url.thenCompose(target -> withQuota(scan, () -> upload(source, size, target, progress)));
+    }
+
+    private static String upload(TransferSource source, long size, String url, TransferProgress progress)
+            throws IOException, JSONException {
+        if (progress != null) {
+            progress.setTotal(size);
+            progress.set(0);
+        }
+        try (InputStream inputStream = open(source)) {
+            RequestBody body = VirusTotalCodec.uploadBody(inputStream, size, progress);
+            Request request = new Request.Builder()
+                    .url(url)
+                    .post(body)
+                    .addHeader("x-apikey", apiKey())
+                    .build();
+            long start = System.nanoTime();
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("Upload failed: " + response.code());
+                }
+                String analysisId = VirusTotalCodec.dataId(response.body().string());
+                TransferMetrics.shared().recordSince(TransferMetrics.SCAN_UPLOAD, start);
+                if (size > 0) {
+                    TransferMetrics.shared().increment(TransferMetrics.SCAN_UPLOAD_BYTES, size);
+                }
+                return analysisId;
+            }
+        }
+    }
+
+    private static InputStream open(TransferSource source) throws IOException {
+        InputStream inputStream = source.open();
+        if (inputStream == null) {
+            throw new FileNotFoundException("Cannot open file stream");
+        }
+        return inputStream;
+    }
+
+    private static String requestUploadUrl() throws IOException, JSONException {
+        acquireQuota();
+        return fetchUploadUrl();
+    }
+
+    private static String fetchUploadUrl() throws IOException, JSONException {
+        Request request = new Request.Builder()
+                .url(UPLOAD_URL_ENDPOINT)
+                .get()
+                .addHeader("x-apikey", apiKey())
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Upload URL request failed: " + response.code());
+            }
+            return VirusTotalCodec.uploadUrl(response.body().string());
+        }
+    }
+
+    private static void acquireQuota() throws IOException {
+        long start = System.nanoTime();
+        quota.acquire();
+        TransferMetrics.shared().recordSince(TransferMetrics.SCAN_QUOTA_WAIT, start);
+    }
+
+    private static <T> CompletableFuture<T> withQuota(CompletableFuture<?> scan, Callable<T> call) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> acquired = quota.acquireAsync(timer);
+        scan.whenComplete((ignored, error) -> acquired.cancel(false));
+        return acquired.thenApplyAsync(ignored -> {
+            TransferMetrics.shared().recordSince(TransferMetrics.SCAN_QUOTA_WAIT, start);
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, scanExecutor);
+    }
+
+    private static ScanResult analyzeScanReport(String scanReport) throws JSONException {
+        JSONObject stats = VirusTotalCodec.attributes(scanReport).getJSONObject("stats");
+        return new ScanResult(
+                stats.getInt("malicious"),
+                stats.getInt("suspicious"),
+                stats.getInt("undetected")
+        );
+    }
+
+    public static class ScanResult {
+        public final int maliciousCount;
+        public final int suspiciousCount;
+        public final int cleanCount;
+        public final boolean isError;
+        public final String errorMessage;
+        public ScanResult(int malicious, int suspicious, int clean) {
+            this.maliciousCount = malicious;
+            this.suspiciousCount = suspicious;
+            this.cleanCount = clean;
+            this.isError = false;
+            this.errorMessage = null;
+        }
+        public ScanResult(String error, boolean isError) {
+            this.maliciousCount = 0;
+            this.suspiciousCount = 0;
+            this.cleanCount = 0;
+            this.isError = isError;
+            this.errorMessage = error;
+        }
+        public boolean isInfected() {
+            return maliciousCount > 0 || suspiciousCount > 0;
+        }
+    }
+}
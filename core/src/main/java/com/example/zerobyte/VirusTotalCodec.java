@@ -0,0 +1,53 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+public class VirusTotalCodec {
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private VirusTotalCodec() {
+    }
+
+    public static RequestBody uploadBody(InputStream inputStream, long size, TransferProgress progress) {
+        return new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", "file", new InputStreamRequestBody(inputStream, OCTET_STREAM, size, progress))
+                .build();
+    }
+
+    public static String dataId(String response) throws JSONException {
+        return new JSONObject(response).getJSONObject("data").getString("id");
+    }
+
+    public static String uploadUrl(String response) throws JSONException {
+        return new JSONObject(response).getString("data");
+    }
+
+    public static JSONObject attributes(String response) throws JSONException {
+        return new JSONObject(response).getJSONObject("data").getJSONObject("attributes");
+    }
+
+    public static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest = CidCodec.newSha256();
+        ReadableByteChannel source = inputStream instanceof FileInputStream
+                ? ((FileInputStream) inputStream).getChannel() : Channels.newChannel(inputStream);
+        try (BufferedTransfer transfer = new BufferedTransfer(BufferPool.shared())) {
+            ByteBuffer chunk;
+            while ((chunk = transfer.fill(source)) != null) {
+                digest.update(chunk);
+            }
+        }
+        return CidCodec.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class VirusTotalPoller {
+    private static final Logger log = Logger.getLogger("VirusTotal");
+    private static final String REPORT_URL = "https://www.virustotal.com/api/v3/analyses/%s";
+    private static final long INITIAL_DELAY_MILLIS = 1_500;
+    private static final long MAX_DELAY_MILLIS = 60_000;
+    private static final long DEADLINE_MILLIS = 10 * 60_000;
+    private static final double JITTER = 0.2;
+
+    private final OkHttpClient client;
+    private final TokenBucket quota;
+    private final ScheduledExecutorService timer;
+    private final TransferMetrics metrics = TransferMetrics.shared();
+    private volatile String apiKey;
+
+    public VirusTotalPoller(OkHttpClient client, String apiKey, TokenBucket quota, ScheduledExecutorService timer) {
+        this.client = client;
+        this.apiKey = apiKey;
+        this.quota = quota;
+        this.timer = timer;
+    }
+
+    private static class Pending {
+        final String analysisId;
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final long deadlineMillis = System.currentTimeMillis() + DEADLINE_MILLIS;
+        int attempt;
+        volatile Call call;
+
+        Pending(String analysisId) {
+            this.analysisId = analysisId;
+        }
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    public CompletableFuture<String> poll(String analysisId) {
+        Pending pending = new Pending(analysisId);
+        long start = System.nanoTime();
+        pending.future.whenComplete((report, error) -> {
+            if (error == null) {
+                metrics.recordSince(TransferMetrics.SCAN_POLL, start);
+            }
+            Call call = pending.call;
+            if (pending.future.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        schedule(pending, jitter(INITIAL_DELAY_MILLIS));
+        return pending.future;
+    }
+
+    private void schedule(Pending pending, long delayMillis) {
+        if (System.currentTimeMillis() + delayMillis > pending.deadlineMillis) {
+            pending.future.completeExceptionally(new TimeoutException("Scan timeout"));
+            return;
+        }
+        timer.schedule(() -> check(pending), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void check(Pending pending) {
+        if (pending.future.isDone()) {
+            return;
+        }
+        long quotaWait = quota.tryAcquire();
+        if (quotaWait > 0) {
+            schedule(pending, quotaWait);
+            return;
+        }
+        String key = apiKey;
+        if (key == null || key.isEmpty()) {
+            pending.future.completeExceptionally(new IOException("VirusTotal API key is not configured"));
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(String.format(Locale.US, REPORT_URL, pending.analysisId))
+                .get()
+                .addHeader("x-apikey", key)
+                .build();
+        metrics.increment(TransferMetrics.SCAN_POLL_ATTEMPTS);
+        pending.call = client.newCall(request);
+        pending.call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!call.isCanceled()) {
+                    metrics.increment(TransferMetrics.SCAN_POLL_FAILURES);
+                    log.log(Level.WARNING, "Polling attempt " + (pending.attempt + 1) + " failed", e);
+                    retry(pending);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful()) {
+                        metrics.increment(TransferMetrics.SCAN_POLL_FAILURES);
+                        log.warning("Polling attempt " + (pending.attempt + 1) + " failed: " + response.code());
+                        if (response.code() >= 400 && response.code() < 500 && response.code() != 429) {
+                            pending.future.completeExceptionally(
+                                    new IOException("Analysis poll failed: " + response.code()));
+                        } else {
+                            retry(pending);
+                        }
+                        return;
+                    }
+                    String report = body.string();
+                    String status = VirusTotalCodec.attributes(report).getString("status");
+                    if ("completed".equals(status)) {
+                        pending.future.complete(report);
+                    } else {
+                        retry(pending);
+                    }
+                } catch (IOException | JSONException e) {
+                    metrics.increment(TransferMetrics.SCAN_POLL_FAILURES);
+                    log.log(Level.WARNING, "Polling attempt " + (pending.attempt + 1) + " failed", e);
+                    retry(pending);
+                }
+            }
+        });
+    }
+
+    private void retry(Pending pending) {
+        pending.attempt++;
+        long delay = Math.min(MAX_DELAY_MILLIS, INITIAL_DELAY_MILLIS << Math.min(pending.attempt, 6));
+        schedule(pending, jitter(delay));
+    }
+
+    private static long jitter(long delayMillis) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return (long) (delayMillis * factor);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.zerobyte;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.junit.Assert.*;
+
+public class BufferedTransferTest {
+    @Test
+    public void handsOffPartialReadsWithoutWaitingForAFullBuffer() throws Exception {
+        StallingChannel source = new StallingChannel(new byte[] {1, 2, 3});
+        try (BufferedTransfer transfer = new BufferedTransfer(new BufferPool())) {
+            ByteBuffer chunk = transfer.fill(source);
+            assertEquals(3, chunk.remaining());
+            assertEquals(1, source.reads);
+            source.finished = true;
+            assertNull(transfer.fill(source));
+            assertEquals(3, transfer.transferred());
+        }
+    }
+
+    private static class StallingChannel implements ReadableByteChannel {
+        private final byte[] data;
+        int reads;
+        boolean finished;
+
+        StallingChannel(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            reads++;
+            if (finished) {
+                return -1;
+            }
+            if (reads > 1) {
+                throw new IOException("Read past the available bytes");
+            }
+            target.put(data);
+            return data.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
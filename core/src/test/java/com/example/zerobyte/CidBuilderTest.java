@@ -0,0 +1,122 @@
+package com.example.zerobyte;
+
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CidBuilderTest {
+    private static final byte[] HELLO = "hello world\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void emptyFileMatchesKubo() {
+        assertEquals("QmbFMke1KXqnYyBBWxB74N4c5SBnJMVAiMNRcGu6x1AwQH", new CidBuilder().finish());
+    }
+
+    @Test
+    public void singleChunkMatchesKubo() {
+        assertEquals("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o", cidOf(new CidBuilder(), HELLO));
+    }
+
+    @Test
+    public void rawLeafCidV1MatchesKubo() {
+        assertEquals("bafkreifjjcie6lypi6ny7amxnfftagclbuxndqonfipmb64f2km2devei4",
+                cidOf(new CidBuilder(UploadProfile.MODERN), HELLO));
+    }
+
+    @Test
+    public void multiChunkRootLinksEveryLeaf() {
+        List<byte[]> leaves = new ArrayList<>();
+        for (String part : new String[] {"68656c6c", "6f20776f", "726c640a"}) {
+            leaves.add(hex("0a0a" + "08021204" + part + "1804"));
+        }
+        StringBuilder root = new StringBuilder();
+        for (byte[] leaf : leaves) {
+            root.append("1228").append("0a22").append(CidCodec.toHex(multihash(leaf))).append("1200").append("180c");
+        }
+        root.append("0a0a").append("0802180c").append("200420042004");
+        assertEquals(CidCodec.cidV0(hex(root.toString())), cidOf(new CidBuilder(4), HELLO));
+    }
+
+    @Test
+    public void fullNodeOf174LinksStaysSingleLevel() {
+        byte[] data = filled(CidBuilder.MAX_LINKS);
+        byte[] root = fileNode(rawLeaves(data, 0, data.length));
+        assertEquals(cidV1(root), cidOf(new CidBuilder(1, true, 1), data));
+    }
+
+    @Test
+    public void moreThan174LeavesBuildsBalancedTree() throws Exception {
+        byte[] data = filled(CidBuilder.MAX_LINKS + 1);
+        byte[] full = fileNode(rawLeaves(data, 0, CidBuilder.MAX_LINKS));
+        byte[] rest = fileNode(rawLeaves(data, CidBuilder.MAX_LINKS, data.length));
+        byte[] root = DagPb.encodeNode(Arrays.asList(
+                new DagPb.Link(CidCodec.cidBytes(cidV1(full)), "", CidBuilder.MAX_LINKS + full.length),
+                new DagPb.Link(CidCodec.cidBytes(cidV1(rest)), "", 1 + rest.length)),
+                DagPb.unixFsFile(null, data.length, new long[] {CidBuilder.MAX_LINKS, 1}));
+        assertEquals(cidV1(root), cidOf(new CidBuilder(1, true, 1), data));
+        assertEquals(1, DagPb.decodeNode(rest).links.size());
+    }
+
+    @Test
+    public void dagPbNodeRoundTrips() throws Exception {
+        byte[] hash = multihash(HELLO);
+        byte[] data = DagPb.unixFsFile(null, 300, new long[] {200, 100});
+        DagPb.Node node = DagPb.decodeNode(DagPb.encodeNode(Arrays.asList(new DagPb.Link(hash, "a", 7),
+                new DagPb.Link(hash, "", 300)), data));
+        assertEquals(2, node.links.size());
+        assertArrayEquals(hash, node.links.get(0).hash);
+        assertEquals("a", node.links.get(0).name);
+        assertEquals(300, node.links.get(1).tsize);
+        DagPb.UnixFsData unixFs = DagPb.decodeUnixFs(node.data);
+        assertEquals(DagPb.UNIXFS_FILE, unixFs.type);
+        assertEquals(300, unixFs.fileSize);
+        assertEquals(0, unixFs.content.length);
+    }
+
+    private static String cidOf(CidBuilder builder, byte[] data) {
+        builder.update(data, 0, data.length);
+        return builder.finish();
+    }
+
+    private static byte[] filled(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static List<DagPb.Link> rawLeaves(byte[] data, int from, int to) {
+        List<DagPb.Link> links = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            links.add(new DagPb.Link(CidCodec.cidV1(CidCodec.CODEC_RAW, multihash(new byte[] {data[i]})), "", 1));
+        }
+        return links;
+    }
+
+    private static byte[] fileNode(List<DagPb.Link> leaves) {
+        long[] sizes = new long[leaves.size()];
+        Arrays.fill(sizes, 1);
+        return DagPb.encodeNode(leaves, DagPb.unixFsFile(null, leaves.size(), sizes));
+    }
+
+    private static String cidV1(byte[] node) {
+        return CidCodec.toCidString(CidCodec.cidV1(CidCodec.CODEC_DAG_PB, multihash(node)));
+    }
+
+    private static byte[] multihash(byte[] block) {
+        return CidCodec.sha256Multihash(CidCodec.sha256(block));
+    }
+
+    private static byte[] hex(String text) {
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(text.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
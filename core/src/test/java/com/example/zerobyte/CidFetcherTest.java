@@ -0,0 +1,99 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CidFetcherTest {
+    private final byte[] data = new byte[100 * 1024];
+    private FakeIpfsNode slowNode;
+    private FakeIpfsNode fastNode;
+    private IPFSClientRegistry registry;
+    private IPFSClient slow;
+    private IPFSClient fast;
+    private String cid;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(7).nextBytes(data);
+        slowNode = new FakeIpfsNode();
+        fastNode = new FakeIpfsNode();
+        cid = slowNode.put(data);
+        fastNode.put(data);
+        registry = new IPFSClientRegistry(6, 1);
+        slow = registry.acquire(slowNode.multiAddress());
+        fast = registry.acquire(fastNode.multiAddress());
+        fast.stats().recordSuccess(1000);
+    }
+
+    @After
+    public void tearDown() {
+        slow.release();
+        fast.release();
+        slowNode.close();
+        fastNode.close();
+    }
+
+    @Test
+    public void hedgeFiresAfterDelayAndCancelsTheLoser() throws Exception {
+        slowNode.setLatencyMillis(3000);
+        CidFetcher fetcher = fetcher();
+        long start = System.nanoTime();
+        try (CidFetcher.Fetch fetch = fetcher.open(cid, 0, -1, new HashSet<>())) {
+            long elapsed = IPFSNodeRouter.elapsedMillis(start);
+            assertSame(fast, fetch.node);
+            assertTrue("hedged after " + elapsed + "ms", elapsed >= fetcher.hedgeDelayMillis() && elapsed < 3000);
+            assertEquals(1, registry.scheduler().activeTransfers(fast));
+            assertArrayEquals(data, fetch.source.readByteArray());
+        }
+        assertEquals(0, registry.scheduler().activeTransfers(fast));
+        CidFetcher.HedgeStats stats = fetcher.stats();
+        assertEquals(1, stats.hedgesFired);
+        assertEquals(1, stats.hedgeWins);
+        assertEquals(1, stats.cancelledAttempts);
+        Thread.sleep(200);
+        assertEquals(0, slow.stats().errorRate(), 0);
+        assertEquals(NodeStats.BreakerState.CLOSED, slow.stats().state());
+    }
+
+    @Test
+    public void hedgeWaitsForAFreeNodeSlot() throws Exception {
+        slowNode.setLatencyMillis(800);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        registry.scheduler().bulk(Collections.singletonList(fast), 1, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CidFetcher fetcher = fetcher();
+        try (CidFetcher.Fetch fetch = fetcher.open(cid, 0, -1, new HashSet<>())) {
+            assertSame(slow, fetch.node);
+            assertArrayEquals(data, fetch.source.readByteArray());
+        } finally {
+            release.countDown();
+        }
+        assertEquals(0, fetcher.stats().hedgesFired);
+    }
+
+    private CidFetcher fetcher() {
+        List<IPFSClient> nodes = Arrays.asList(slow, fast);
+        CidFetcher fetcher = new CidFetcher(new IPFSNodeRouter(nodes), registry.fetchExecutor(),
+                registry.scheduler());
+        fetcher.setHedging(true);
+        return fetcher;
+    }
+}
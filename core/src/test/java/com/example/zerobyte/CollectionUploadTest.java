@@ -0,0 +1,122 @@
+package com.example.zerobyte;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CollectionUploadTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void directoryEntriesKeepSubtreesContiguous() throws Exception {
+        File root = folder.newFolder("root");
+        assertTrue(new File(root, "a").mkdir());
+        assertTrue(new File(root, "a/b").createNewFile());
+        assertTrue(new File(root, "a.txt").createNewFile());
+        assertTrue(new File(root, "a-b").createNewFile());
+        assertTrue(new File(root, "a c").mkdir());
+        assertTrue(new File(root, "a c/d").createNewFile());
+
+        List<String> paths = new ArrayList<>();
+        for (CollectionUpload.Entry entry : CollectionUpload.fromDirectory(root)) {
+            paths.add(entry.path);
+        }
+        assertEquals(Arrays.asList("a", "a/b", "a c", "a c/d", "a-b", "a.txt"), paths);
+    }
+
+    @Test
+    public void parentSortsBeforeChildrenAndSiblings() {
+        assertTrue(CollectionUpload.comparePaths("a", "a/b") < 0);
+        assertTrue(CollectionUpload.comparePaths("a/b", "a.txt") < 0);
+        assertTrue(CollectionUpload.comparePaths("a/z", "a.txt") < 0);
+        assertEquals(0, CollectionUpload.comparePaths("a/b", "a/b"));
+    }
+
+    @Test
+    public void failedUploadClosesStreamsPrefetchedAfterIt() throws Exception {
+        CountDownLatch opening = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        TransferSource missing = source(() -> {
+            opening.await(5, TimeUnit.SECONDS);
+            throw new FileNotFoundException("missing");
+        });
+        TransferSource slow = source(() -> {
+            opening.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new ByteArrayInputStream(new byte[0]) {
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            };
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try (FakeIpfsNode node = new FakeIpfsNode()) {
+            CollectionUpload upload = new CollectionUpload(executor, Arrays.asList(
+                    new CollectionUpload.Entry("a", missing, -1), new CollectionUpload.Entry("b", slow, -1)));
+            try {
+                upload.upload(new IPFSHttpAPI(node.multiAddress()), null, null);
+                fail("upload should fail on the missing entry");
+            } catch (IOException expected) {
+            }
+            release.countDown();
+            assertTrue("prefetched stream was never closed", closed.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Opener {
+        InputStream open() throws IOException, InterruptedException;
+    }
+
+    private static TransferSource source(Opener opener) {
+        return new TransferSource() {
+            @Override
+            public String name() {
+                return "entry";
+            }
+
+            @Override
+            public String key() {
+                return "entry";
+            }
+
+            @Override
+            public long size() {
+                return -1;
+            }
+
+            @Override
+            public long lastModified() {
+                return 0;
+            }
+
+            @Override
+            public InputStream open() throws IOException {
+                try {
+                    return opener.open();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        };
+    }
+}
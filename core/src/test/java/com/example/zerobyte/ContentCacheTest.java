@@ -0,0 +1,81 @@
+package com.example.zerobyte;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ContentCacheTest {
+    private static final String HELLO_CID = "QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storesContentThatHashesToTheCid() throws Exception {
+        ContentCache cache = new ContentCache(folder.newFolder("cache"), 1024 * 1024);
+        try (FileChannel source = channelOf("hello world\n")) {
+            cache.put(HELLO_CID, source, source.size());
+        }
+        assertEquals(12, cache.sizeOf(HELLO_CID));
+    }
+
+    @Test
+    public void rejectsUnverifiedContentThatDoesNotMatch() throws Exception {
+        ContentCache cache = new ContentCache(folder.newFolder("cache"), 1024 * 1024);
+        try (FileChannel source = channelOf("tampered\n")) {
+            cache.put(HELLO_CID, source, source.size());
+        }
+        assertEquals(-1, cache.sizeOf(HELLO_CID));
+        try (FileChannel source = channelOf("tampered\n")) {
+            cache.put(HELLO_CID, source, source.size(), true);
+        }
+        assertEquals(9, cache.sizeOf(HELLO_CID));
+    }
+
+    @Test
+    public void concurrentWritersStoreOneCopy() throws Exception {
+        File directory = folder.newFolder("cache");
+        ContentCache cache = new ContentCache(directory, 1024 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            File copy = folder.newFile();
+            Files.write(copy.toPath(), "hello world\n".getBytes(StandardCharsets.UTF_8));
+            writers.add(executor.submit(() -> {
+                start.await();
+                try (FileChannel source = new RandomAccessFile(copy, "r").getChannel()) {
+                    cache.put(HELLO_CID, source, source.size());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        assertEquals(1, cache.stats().entries);
+        assertEquals(12, cache.stats().bytes);
+        assertArrayEquals(new String[] {HELLO_CID}, directory.list((dir, name) -> !name.startsWith(".")));
+    }
+
+    private FileChannel channelOf(String content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new RandomAccessFile(file, "r").getChannel();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.zerobyte;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IPFSClientRegistryTest {
+    private static final String ADDRESS = "/ip4/127.0.0.1/tcp/5001";
+
+    @Test
+    public void sharesOneClientPerAddressUntilLastRelease() {
+        IPFSClientRegistry registry = new IPFSClientRegistry(4, 2);
+        IPFSClient first = registry.acquire(ADDRESS);
+        IPFSClient second = registry.acquire(ADDRESS);
+        assertSame(first, second);
+        assertNotSame(first, registry.acquire("/ip4/127.0.0.1/tcp/5002"));
+        assertEquals(2, registry.activeClients());
+
+        first.release();
+        assertEquals(2, registry.activeClients());
+        second.release();
+        assertEquals(1, registry.activeClients());
+        assertNotSame(first, registry.acquire(ADDRESS));
+    }
+}
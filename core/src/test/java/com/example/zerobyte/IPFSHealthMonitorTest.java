@@ -0,0 +1,50 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+public class IPFSHealthMonitorTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final NodeStats stats = new NodeStats();
+    private FakeIpfsNode node;
+    private IPFSHealthMonitor monitor;
+
+    @Before
+    public void setUp() throws Exception {
+        node = new FakeIpfsNode();
+        monitor = new IPFSHealthMonitor(new IPFSHttpAPI(node.multiAddress()), stats, scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        node.close();
+    }
+
+    @Test
+    public void cachedStatusAvoidsRepeatProbes() {
+        assertNull(monitor.cachedStatus());
+        IPFSHealthMonitor.HealthStatus status = monitor.check();
+        assertTrue(status.message, status.online);
+        assertSame(status, monitor.check());
+        assertSame(status, monitor.probe());
+        assertEquals(1, node.requests());
+    }
+
+    @Test
+    public void expiredStatusProbesAgainAndReportsOffline() throws Exception {
+        monitor.setTtlMillis(0);
+        assertTrue(monitor.check().online);
+        node.close();
+        Thread.sleep(300);
+        IPFSHealthMonitor.HealthStatus status = monitor.check();
+        assertFalse(status.online);
+        assertSame(status, monitor.lastStatus());
+        assertTrue(stats.errorRate() > 0);
+    }
+}
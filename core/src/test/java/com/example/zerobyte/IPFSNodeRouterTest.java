@@ -0,0 +1,57 @@
+package com.example.zerobyte;
+
+import org.json.JSONException;
+import org.junit.Test;
+import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class IPFSNodeRouterTest {
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    public void unexpectedErrorDuringTrialReleasesIt() throws Exception {
+        IPFSClient node = halfOpenNode();
+        IPFSNodeRouter router = new IPFSNodeRouter(Collections.singletonList(node));
+        try {
+            router.executeOnAvailable(api -> {
+                throw new JSONException("Malformed response");
+            }, null);
+            fail("Expected the call's exception");
+        } catch (JSONException expected) {
+        }
+        assertEquals(NodeStats.BreakerState.HALF_OPEN, node.stats().state());
+        assertTrue(node.stats().isAvailable());
+        assertEquals("ok", router.executeOnAvailable(api -> "ok", null));
+        assertEquals(NodeStats.BreakerState.CLOSED, node.stats().state());
+    }
+
+    @Test
+    public void missingContentDuringTrialReleasesIt() throws Exception {
+        IPFSClient node = halfOpenNode();
+        IPFSNodeRouter router = new IPFSNodeRouter(Collections.singletonList(node));
+        try {
+            router.execute(api -> {
+                throw new FileNotFoundException("No such CID");
+            });
+            fail("Expected the call's exception");
+        } catch (FileNotFoundException expected) {
+        }
+        assertSame(node, router.select(Collections.emptySet()));
+    }
+
+    private IPFSClient halfOpenNode() {
+        NodeStats stats = new NodeStats(now::get);
+        for (int i = 0; i < 3; i++) {
+            stats.recordFailure(-1);
+        }
+        assertEquals(NodeStats.BreakerState.OPEN, stats.state());
+        assertFalse(stats.isAvailable());
+        now.set(stats.openUntilMillis());
+        assertTrue(stats.isAvailable());
+        return new IPFSClient(null, "/ip4/127.0.0.1/tcp/15001",
+                new IPFSHttpAPI("/ip4/127.0.0.1/tcp/15001"), stats, null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.zerobyte;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void emptyHistogramReportsZeros() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.max);
+        assertEquals(0, snapshot.p99);
+    }
+
+    @Test
+    public void percentilesStayWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count);
+        assertEquals(1, snapshot.min);
+        assertEquals(1000, snapshot.max);
+        assertEquals(500.5, snapshot.mean, 0.001);
+        assertWithin(500, snapshot.p50);
+        assertWithin(900, snapshot.p90);
+        assertWithin(990, snapshot.p99);
+        assertEquals(1000, snapshot.p999);
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 31, 32, 33, 1000, 65_535, 1L << 40, Long.MAX_VALUE}) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketFor(value));
+            assertTrue(value + " above its bucket " + upper, upper >= value);
+            assertTrue(value + " in too wide a bucket " + upper, upper - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void negativeValuesCountAsZeroAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().min);
+        assertEquals(1, histogram.count());
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " below " + expected, actual >= expected);
+        assertTrue(actual + " too far above " + expected, actual - expected <= expected / 16);
+    }
+}
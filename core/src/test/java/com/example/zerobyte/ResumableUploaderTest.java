@@ -0,0 +1,109 @@
+package com.example.zerobyte;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResumableUploaderTest {
+    private static final int CHUNK_SIZE = (int) ResumableUploader.MIN_CHUNK_SIZE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] data = new byte[2 * CHUNK_SIZE + 1000];
+    private FakeIpfsNode node;
+    private IPFSHttpAPI api;
+    private File source;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(5).nextBytes(data);
+        node = new FakeIpfsNode();
+        api = new IPFSHttpAPI(node.multiAddress());
+        source = folder.newFile("source");
+        Files.write(source.toPath(), data);
+    }
+
+    @After
+    public void tearDown() {
+        node.close();
+    }
+
+    @Test
+    public void resumedUploadSkipsCompletedChunksAndBuildsTheSameRoot() throws Exception {
+        File checkpoints = folder.newFolder("checkpoints");
+        crashAfterFirstChunk(checkpoints);
+
+        long requests = node.requests();
+        String root = upload(new TransferCheckpointStore(checkpoints));
+        assertEquals("two adds, one dag put and three unpins", 6, node.requests() - requests);
+        assertEquals(upload(new TransferCheckpointStore(folder.newFolder("fresh"))), root);
+
+        DagPb.Node rootNode = DagPb.decodeNode(node.block(root));
+        assertEquals(3, rootNode.links.size());
+        assertEquals(data.length, DagPb.decodeUnixFs(rootNode.data).fileSize);
+        assertEquals(chunkCid(0, CHUNK_SIZE), CidCodec.toCidString(rootNode.links.get(0).hash));
+        assertTrue(node.unpinned().contains(chunkCid(0, CHUNK_SIZE)));
+        assertEquals(0, checkpoints.list().length);
+    }
+
+    @Test
+    public void changedSourceUnpinsTheStaleChunks() throws Exception {
+        File checkpoints = folder.newFolder("checkpoints");
+        crashAfterFirstChunk(checkpoints);
+        String staleChunk = chunkCid(0, CHUNK_SIZE);
+
+        data[0]++;
+        Files.write(source.toPath(), data);
+        String root = upload(new TransferCheckpointStore(checkpoints));
+
+        assertTrue(node.unpinned().contains(staleChunk));
+        assertNotEquals(staleChunk, chunkCid(0, CHUNK_SIZE));
+        assertEquals(upload(new TransferCheckpointStore(folder.newFolder("fresh"))), root);
+    }
+
+    private void crashAfterFirstChunk(File checkpoints) throws Exception {
+        TransferCheckpointStore crashing = new TransferCheckpointStore(checkpoints) {
+            private int saves;
+
+            @Override
+            public synchronized void save(String key, JSONObject checkpoint) throws IOException {
+                if (++saves > 1) {
+                    throw new IOException("crash");
+                }
+                super.save(key, checkpoint);
+            }
+        };
+        try {
+            upload(crashing);
+            fail("upload should stop at the simulated crash");
+        } catch (IOException e) {
+            assertEquals("crash", e.getMessage());
+        }
+    }
+
+    private String upload(TransferCheckpointStore store) throws Exception {
+        try (FileChannel channel = new RandomAccessFile(source, "r").getChannel()) {
+            return new ResumableUploader(api, store).upload("source", channel, data.length, null);
+        }
+    }
+
+    private String chunkCid(int from, int to) {
+        CidBuilder builder = new CidBuilder();
+        byte[] chunk = Arrays.copyOfRange(data, from, to);
+        builder.update(chunk, 0, chunk.length);
+        return builder.finish();
+    }
+}
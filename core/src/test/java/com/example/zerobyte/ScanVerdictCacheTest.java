@@ -0,0 +1,47 @@
+package com.example.zerobyte;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ScanVerdictCacheTest {
+    private static final String CID = "QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o";
+    private static final String SHA256 = "a948904f2f0f479b8f8197694b30184b0d2ed1c1cd2a1ec0fb85d299a192a447";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void partialScanIsNotCachedUnderTheCid() throws Exception {
+        ScanVerdictCache cache = new ScanVerdictCache(new File(folder.getRoot(), "verdicts.log"),
+                ScanVerdictCache.DEFAULT_TTL_MILLIS);
+        cache.put(CID, SHA256, 0, 12, new VirusTotalClient.ScanResult(0, 0, 70));
+        assertNull(cache.forCid(CID));
+        assertNotNull(cache.forSha256(SHA256));
+
+        cache.put(CID, SHA256, 12, TransferScheduler.UNKNOWN_SIZE, new VirusTotalClient.ScanResult(0, 0, 70));
+        assertNull(cache.forCid(CID));
+
+        cache.put(CID, SHA256, 12, 12, new VirusTotalClient.ScanResult(0, 0, 70));
+        assertEquals(70, cache.forCid(CID).cleanCount);
+    }
+
+    @Test
+    public void verdictsSurviveReloadButOldFormatIsDropped() throws Exception {
+        File log = new File(folder.getRoot(), "verdicts.log");
+        Files.write(log.toPath(), ("{\"key\":\"cid:" + CID + "\",\"malicious\":0,\"suspicious\":0,\"clean\":70,"
+                + "\"at\":" + System.currentTimeMillis() + "}\n").getBytes(StandardCharsets.UTF_8));
+        assertNull(new ScanVerdictCache(log, ScanVerdictCache.DEFAULT_TTL_MILLIS).forCid(CID));
+
+        new ScanVerdictCache(log, ScanVerdictCache.DEFAULT_TTL_MILLIS)
+                .put(CID, SHA256, 12, 12, new VirusTotalClient.ScanResult(1, 0, 69));
+        ScanVerdictCache reloaded = new ScanVerdictCache(log, ScanVerdictCache.DEFAULT_TTL_MILLIS);
+        assertTrue(reloaded.forCid(CID).isInfected());
+        assertTrue(reloaded.forSha256(SHA256).isInfected());
+    }
+}
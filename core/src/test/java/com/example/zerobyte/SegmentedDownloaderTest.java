@@ -0,0 +1,99 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SegmentedDownloaderTest {
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] data = new byte[3 * SEGMENT_SIZE + 1000];
+    private FakeIpfsNode node;
+    private IPFSClientRegistry registry;
+    private IPFSClient client;
+    private String cid;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(3).nextBytes(data);
+        node = new FakeIpfsNode();
+        cid = node.put(data);
+        registry = new IPFSClientRegistry(4, 2);
+        client = registry.acquire(node.multiAddress());
+    }
+
+    @After
+    public void tearDown() {
+        client.release();
+        node.close();
+    }
+
+    @Test
+    public void resumesAfterCrashWithoutRefetchingCommittedSegments() throws Exception {
+        File store = folder.newFolder("checkpoints");
+        File target = new File(folder.getRoot(), "download");
+        DownloadCheckpoint checkpoint = checkpoint(store, target);
+        assertFalse(checkpoint.isResumed());
+        try (FileChannel channel = new RandomAccessFile(target, "rw").getChannel()) {
+            downloader().download(checkpoint, channel, contiguous -> {
+                if (contiguous >= SEGMENT_SIZE) {
+                    throw new IllegalStateException("crash");
+                }
+            }, null);
+            fail("download should stop at the simulated crash");
+        } catch (IOException e) {
+            assertEquals("crash", e.getCause().getMessage());
+        }
+
+        DownloadCheckpoint resumed = checkpoint(store, target);
+        assertTrue(resumed.isResumed());
+        assertEquals(SEGMENT_SIZE, resumed.committed(0));
+        long requests = node.requests();
+        TransferProgress progress = new TransferProgress();
+        try (FileChannel channel = new RandomAccessFile(target, "rw").getChannel()) {
+            downloader().download(resumed, channel, null, progress);
+        }
+        assertEquals(resumed.segmentCount() - 1, node.requests() - requests);
+        assertEquals(data.length, progress.bytesDone());
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void parallelSegmentsReassembleInOrder() throws Exception {
+        File target = new File(folder.getRoot(), "download");
+        DownloadCheckpoint checkpoint = checkpoint(folder.newFolder("checkpoints"), target);
+        CidFetcher fetcher = new CidFetcher(new IPFSNodeRouter(Collections.singletonList(client)),
+                registry.fetchExecutor(), registry.scheduler());
+        try (FileChannel channel = new RandomAccessFile(target, "rw").getChannel()) {
+            new SegmentedDownloader(fetcher, registry.segmentExecutor(), 3).download(checkpoint, channel, null, null);
+        }
+        assertEquals(data.length, checkpoint.contiguousBytes());
+        assertEquals(checkpoint.segmentCount(), node.requests());
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+    }
+
+    private DownloadCheckpoint checkpoint(File store, File target) {
+        return DownloadCheckpoint.open(new TransferCheckpointStore(store), target.getPath(), cid, data.length,
+                SEGMENT_SIZE);
+    }
+
+    private SegmentedDownloader downloader() {
+        CidFetcher fetcher = new CidFetcher(new IPFSNodeRouter(Collections.singletonList(client)),
+                registry.fetchExecutor(), registry.scheduler());
+        return new SegmentedDownloader(fetcher, registry.segmentExecutor(), 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.zerobyte;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TailHasherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void hashWhileWritingMatchesOneShotHash() throws Exception {
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(11).nextBytes(data);
+        File file = folder.newFile("quarantine");
+        TailHasher hasher = new TailHasher(file);
+        CompletableFuture<String> hash = hashAsync(hasher);
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            int written = 0;
+            while (written < data.length) {
+                int length = Math.min(100_000, data.length - written);
+                outputStream.write(data, written, length);
+                written += length;
+                hasher.advance(written);
+            }
+        }
+        hasher.finish(data.length);
+        assertEquals(CidCodec.toHex(CidCodec.sha256(data)), hash.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void emptyFileMatchesOneShotHash() throws Exception {
+        TailHasher hasher = new TailHasher(folder.newFile("empty"));
+        hasher.finish(0);
+        assertEquals(CidCodec.toHex(CidCodec.sha256(new byte[0])), hasher.hash());
+    }
+
+    @Test
+    public void abortFailsTheWaitingHash() throws Exception {
+        TailHasher hasher = new TailHasher(folder.newFile("aborted"));
+        CompletableFuture<String> hash = hashAsync(hasher);
+        hasher.abort();
+        try {
+            hash.get(10, TimeUnit.SECONDS);
+            fail("hash should fail once the download is aborted");
+        } catch (ExecutionException e) {
+            assertEquals("Download failed", e.getCause().getMessage());
+        }
+    }
+
+    private static CompletableFuture<String> hashAsync(TailHasher hasher) {
+        CompletableFuture<String> hash = new CompletableFuture<>();
+        new Thread(() -> {
+            try {
+                hash.complete(hasher.hash());
+            } catch (IOException e) {
+                hash.completeExceptionally(e);
+            }
+        }).start();
+        return hash;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void burstUpToCapacityThenWaitsForRefill() {
+        TokenBucket bucket = new TokenBucket(2, 60);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+        assertTrue("wait " + wait, wait > 0 && wait <= 1000);
+    }
+
+    @Test
+    public void asyncAcquireCompletesOnceRefilled() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 600);
+        assertTrue(bucket.acquireAsync(timer).isDone());
+        CompletableFuture<Void> second = bucket.acquireAsync(timer);
+        assertFalse(second.isDone());
+        second.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void cancelledAcquireDoesNotConsumeToken() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 600);
+        assertEquals(0, bucket.tryAcquire());
+        CompletableFuture<Void> pending = bucket.acquireAsync(timer);
+        pending.cancel(true);
+        Thread.sleep(250);
+        assertEquals(0, bucket.tryAcquire());
+    }
+}
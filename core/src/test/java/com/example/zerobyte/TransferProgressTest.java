@@ -0,0 +1,47 @@
+package com.example.zerobyte;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransferProgressTest {
+    @Test
+    public void listenerUpdatesAreThrottled() {
+        TransferProgress progress = new TransferProgress();
+        progress.setTotal(1000);
+        List<TransferProgress.Snapshot> updates = new ArrayList<>();
+        progress.listen(updates::add, Runnable::run, 4);
+        for (int i = 0; i < 1000; i++) {
+            progress.add(1);
+        }
+        assertTrue("updates " + updates.size(), updates.size() <= 3);
+        progress.finish();
+        TransferProgress.Snapshot last = updates.get(updates.size() - 1);
+        assertTrue(last.finished);
+        assertEquals(1000, last.bytesDone);
+        assertEquals(100, last.percent());
+        assertEquals("100%, 1000 B of 1000 B", last.toString());
+    }
+
+    @Test
+    public void unknownTotalHasNoPercentUntilFinished() {
+        TransferProgress progress = new TransferProgress();
+        progress.add(2048);
+        assertEquals(-1, progress.snapshot().percent());
+        assertEquals(-1, progress.snapshot().etaMillis);
+        progress.finish();
+        assertEquals(100, progress.snapshot().percent());
+    }
+
+    @Test
+    public void formatsBytesAndDurations() {
+        assertEquals("512 B", TransferProgress.formatBytes(512));
+        assertEquals("1.5 KB", TransferProgress.formatBytes(1536));
+        assertEquals("3.0 GB", TransferProgress.formatBytes(3L << 30));
+        assertEquals("2s", TransferProgress.formatDuration(1001));
+        assertEquals("1m 05s", TransferProgress.formatDuration(65_000));
+        assertEquals("2h 03m", TransferProgress.formatDuration(7_380_000));
+    }
+}
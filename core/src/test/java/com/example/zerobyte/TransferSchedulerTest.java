@@ -0,0 +1,93 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TransferSchedulerTest {
+    private IPFSClientRegistry registry;
+    private List<IPFSClient> nodes;
+
+    @Before
+    public void setUp() {
+        registry = new IPFSClientRegistry(6, 3);
+        nodes = Arrays.asList(registry.acquire("/ip4/127.0.0.1/tcp/15001"),
+                registry.acquire("/ip4/127.0.0.1/tcp/15002"));
+    }
+
+    @After
+    public void tearDown() {
+        for (IPFSClient node : nodes) {
+            node.release();
+        }
+    }
+
+    @Test
+    public void twoNodesRunSixTransfersConcurrently() throws Exception {
+        TransferScheduler scheduler = registry.scheduler();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(6);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            TransferHandle handle = scheduler.bulk(nodes, 1024, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+            handle.whenDone(finished::countDown);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(6, scheduler.activeTransfers());
+        assertEquals(3, scheduler.activeTransfers(nodes.get(0)));
+        assertEquals(3, scheduler.activeTransfers(nodes.get(1)));
+        assertEquals(2, scheduler.queuedTransfers());
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(6, peak.get());
+        assertEquals(0, scheduler.activeTransfers(nodes.get(0)));
+        assertEquals(0, scheduler.activeTransfers(nodes.get(1)));
+    }
+
+    @Test
+    public void routerUsesBoundNodeAndFailoverMovesThePermit() throws Exception {
+        TransferScheduler scheduler = registry.scheduler();
+        IPFSNodeRouter router = new IPFSNodeRouter(nodes);
+        List<IPFSClient> selected = Collections.synchronizedList(new ArrayList<>());
+        ConcurrentHashMap<String, Integer> during = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(1);
+        TransferHandle handle = new TransferHandle(scheduler);
+        scheduler.bulk(handle, nodes, 1024, () -> {
+            IPFSClient bound = handle.node();
+            selected.add(router.select(Collections.emptySet(), handle));
+            IPFSClient other = bound == nodes.get(0) ? nodes.get(1) : nodes.get(0);
+            selected.add(router.select(Collections.singleton(bound), handle));
+            during.put("bound", scheduler.activeTransfers(bound));
+            during.put("other", scheduler.activeTransfers(other));
+            selected.add(bound);
+            selected.add(other);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertSame(selected.get(2), selected.get(0));
+        assertSame(selected.get(3), selected.get(1));
+        assertEquals(Integer.valueOf(0), during.get("bound"));
+        assertEquals(Integer.valueOf(1), during.get("other"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VerifiedFetcherTest {
+    private FakeIpfsNode node;
+    private IPFSClientRegistry registry;
+    private IPFSClient client;
+    private VerifiedFetcher fetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        node = new FakeIpfsNode();
+        registry = new IPFSClientRegistry(6, 3);
+        client = registry.acquire(node.multiAddress());
+        fetcher = new VerifiedFetcher(new IPFSNodeRouter(Collections.singletonList(client)),
+                registry.fetchExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        client.release();
+        node.close();
+    }
+
+    @Test
+    public void fetchesAndVerifiesEveryBlock() throws Exception {
+        String root = putFile("hello ", "world\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(12, fetcher.fetch(root, Channels.newChannel(out), null));
+        assertEquals("hello world\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void rejectsTamperedBlock() throws Exception {
+        String root = putFile("hello ", "world\n");
+        byte[] second = rawLeafCid("world\n");
+        node.putBlock(CidCodec.toCidString(second), "w0rld\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            fetcher.fetch(root, Channels.newChannel(new ByteArrayOutputStream()), null);
+            fail("Tampered block was accepted");
+        } catch (VerifiedFetcher.VerificationException e) {
+            assertEquals(CidCodec.toCidString(second), e.cid);
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedMultihash() throws Exception {
+        byte[] sha1 = new byte[24];
+        sha1[0] = 0x11;
+        sha1[1] = 20;
+        String cid = CidCodec.toCidString(CidCodec.cidV1(CidCodec.CODEC_RAW, sha1));
+        node.putBlock(cid, new byte[] {1, 2, 3});
+        try {
+            fetcher.fetch(cid, Channels.newChannel(new ByteArrayOutputStream()), null);
+            fail("Non-sha256 block was accepted");
+        } catch (VerifiedFetcher.VerificationException expected) {
+        }
+    }
+
+    @Test
+    public void rejectsOversizedBlockBeforeBufferingIt() throws Exception {
+        byte[] block = new byte[(int) IPFSHttpAPI.MAX_BLOCK_SIZE + 1];
+        String cid = CidCodec.toCidString(CidCodec.cidV1(CidCodec.CODEC_RAW,
+                CidCodec.sha256Multihash(CidCodec.sha256(block))));
+        node.putBlock(cid, block);
+        try {
+            fetcher.fetch(cid, Channels.newChannel(new ByteArrayOutputStream()), null);
+            fail("Oversized block was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("exceeds"));
+        }
+    }
+
+    private String putFile(String... parts) {
+        List<DagPb.Link> links = new ArrayList<>();
+        long[] sizes = new long[parts.length];
+        long total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            byte[] data = parts[i].getBytes(StandardCharsets.UTF_8);
+            byte[] cid = rawLeafCid(parts[i]);
+            node.putBlock(CidCodec.toCidString(cid), data);
+            links.add(new DagPb.Link(cid, "", data.length));
+            sizes[i] = data.length;
+            total += data.length;
+        }
+        byte[] root = DagPb.encodeNode(links, DagPb.unixFsFile(null, total, sizes));
+        String cid = CidCodec.toCidString(CidCodec.cidV1(CidCodec.CODEC_DAG_PB,
+                CidCodec.sha256Multihash(CidCodec.sha256(root))));
+        node.putBlock(cid, root);
+        return cid;
+    }
+
+    private static byte[] rawLeafCid(String part) {
+        byte[] data = part.getBytes(StandardCharsets.UTF_8);
+        return CidCodec.cidV1(CidCodec.CODEC_RAW, CidCodec.sha256Multihash(CidCodec.sha256(data)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.zerobyte;
+
+import org.junit.After;
+import org.junit.Test;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+public class VirusTotalPollerTest {
+    private static final String COMPLETED = "{\"data\":{\"attributes\":{\"status\":\"completed\"}}}";
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @After
+    public void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void clientErrorFailsWithoutRetrying() throws Exception {
+        VirusTotalPoller poller = new VirusTotalPoller(client(403), "key", new TokenBucket(10, 600), timer);
+        IOException error = failure(poller);
+        assertTrue(error.getMessage(), error.getMessage().contains("403"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void rateLimitIsRetried() throws Exception {
+        VirusTotalPoller poller = new VirusTotalPoller(client(429, 200), "key", new TokenBucket(10, 600), timer);
+        assertEquals(COMPLETED, poller.poll("analysis").get(10, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void missingApiKeyFailsBeforeSending() throws Exception {
+        VirusTotalPoller poller = new VirusTotalPoller(client(200), "", new TokenBucket(10, 600), timer);
+        assertEquals("VirusTotal API key is not configured", failure(poller).getMessage());
+        assertEquals(0, requests.get());
+    }
+
+    private IOException failure(VirusTotalPoller poller) throws Exception {
+        try {
+            poller.poll("analysis").get(10, TimeUnit.SECONDS);
+            fail("poll should fail");
+            return null;
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+            return (IOException) e.getCause();
+        }
+    }
+
+    private OkHttpClient client(int... codes) {
+        return new OkHttpClient.Builder().addInterceptor(chain -> {
+            int code = codes[Math.min(requests.getAndIncrement(), codes.length - 1)];
+            return new Response.Builder()
+                    .request(chain.request())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(code)
+                    .message("HTTP " + code)
+                    .body(ResponseBody.create(code == 200 ? COMPLETED : "{}",
+                            MediaType.get("application/json")))
+                    .build();
+        }).build();
+    }
+}
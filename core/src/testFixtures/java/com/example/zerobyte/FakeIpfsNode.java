@@ -0,0 +1,467 @@
+package com.example.zerobyte;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FakeIpfsNode implements Closeable {
+    private static final int SLICE_SIZE = 16 * 1024;
+    private static final byte[] HEADER_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNIXFS_DIRECTORY = {0x08, DagPb.UNIXFS_DIRECTORY};
+    private static final String PEER_ID = "12D3KooWFakeNodeForLocalBenchmarks0000000000000000";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> blocks = new ConcurrentHashMap<>();
+    private final Set<String> unpinned = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private volatile long latencyMillis;
+    private volatile long bandwidthBytesPerSecond;
+    private volatile double errorRate;
+    private volatile boolean retainUploads = true;
+
+    public FakeIpfsNode() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        route("/api/v0/add", this::handleAdd);
+        route("/api/v0/cat", this::handleCat);
+        route("/api/v0/refs/local", this::handleRefsLocal);
+        route("/api/v0/id", this::handleId);
+        route("/api/v0/block/stat", this::handleBlockStat);
+        route("/api/v0/block/get", this::handleBlockGet);
+        route("/api/v0/files/stat", this::handleFilesStat);
+        route("/api/v0/dag/put", this::handleDagPut);
+        route("/api/v0/pin/ls", this::handlePinLs);
+        route("/api/v0/pin/rm", this::handlePinRm);
+        route("/api/v0/version", this::handleVersion);
+        server.start();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setBandwidthBytesPerSecond(long bandwidthBytesPerSecond) {
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setRetainUploads(boolean retainUploads) {
+        this.retainUploads = retainUploads;
+    }
+
+    public String multiAddress() {
+        return "/ip4/127.0.0.1/tcp/" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public String put(byte[] data) {
+        CidBuilder builder = new CidBuilder();
+        builder.update(data, 0, data.length);
+        String cid = builder.finish();
+        blobs.put(cid, data);
+        return cid;
+    }
+
+    public void putBlock(String cid, byte[] block) {
+        blocks.put(cid, block);
+    }
+
+    public byte[] block(String cid) {
+        return blocks.get(cid);
+    }
+
+    public Set<String> unpinned() {
+        return new TreeSet<>(unpinned);
+    }
+
+    private String store(byte[] data) {
+        CidBuilder builder = new CidBuilder();
+        builder.update(data, 0, data.length);
+        String cid = builder.finish();
+        if (retainUploads) {
+            blobs.put(cid, data);
+        }
+        return cid;
+    }
+
+    private void route(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            requests.incrementAndGet();
+            try {
+                Map<String, String> query = query(exchange);
+                sleep(latencyMillis);
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    injectedErrors.incrementAndGet();
+                    drain(exchange.getRequestBody());
+                    respond(exchange, 500, "{\"Message\":\"injected failure\",\"Code\":0,\"Type\":\"error\"}");
+                    return;
+                }
+                handler.handle(exchange, query);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        });
+    }
+
+    private void handleAdd(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int boundaryStart = contentType != null ? contentType.indexOf("boundary=") : -1;
+        if (boundaryStart < 0) {
+            drain(exchange.getRequestBody());
+            respond(exchange, 400, "{\"Message\":\"file argument 'path' is required\",\"Code\":1,\"Type\":\"error\"}");
+            return;
+        }
+        String boundary = contentType.substring(boundaryStart + 9);
+        if (Boolean.parseBoolean(query.get("wrap-with-directory"))) {
+            handleWrappedAdd(exchange, ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        InputStream body = exchange.getRequestBody();
+        skipPartHeaders(body);
+        CidBuilder builder = new CidBuilder();
+        ByteArrayOutputStream retained = retainUploads ? new ByteArrayOutputStream() : null;
+        byte[] buffer = new byte[SLICE_SIZE + trailer.length];
+        int held = 0;
+        long received = 0;
+        long start = System.nanoTime();
+        int read;
+        while ((read = body.read(buffer, held, SLICE_SIZE)) != -1) {
+            int available = held + read;
+            int content = Math.max(0, available - trailer.length);
+            builder.update(ByteBuffer.wrap(buffer, 0, content));
+            if (retained != null) {
+                retained.write(buffer, 0, content);
+            }
+            System.arraycopy(buffer, content, buffer, 0, available - content);
+            held = available - content;
+            received += content;
+            throttle(start, received);
+        }
+        String cid = builder.finish();
+        if (retained != null) {
+            blobs.put(cid, retained.toByteArray());
+        }
+        respond(exchange, 200, "{\"Name\":\"file\",\"Hash\":\"" + cid + "\",\"Size\":\"" + received + "\"}\n");
+    }
+
+    private void handleWrappedAdd(HttpExchange exchange, byte[] separator) throws IOException {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        received.write('\r');
+        received.write('\n');
+        exchange.getRequestBody().transferTo(received);
+        byte[] body = received.toByteArray();
+        Map<String, DagPb.Link> added = new TreeMap<>(CollectionUpload::comparePaths);
+        TreeSet<String> directories = new TreeSet<>(Comparator.comparingInt(FakeIpfsNode::depth).reversed()
+                .thenComparing(CollectionUpload::comparePaths));
+        directories.add("");
+        StringBuilder response = new StringBuilder();
+        int start = indexOf(body, separator, 0);
+        while (start >= 0 && start + separator.length < body.length && body[start + separator.length] != '-') {
+            int headers = start + separator.length;
+            int contentStart = indexOf(body, HEADER_END, headers);
+            int end = contentStart < 0 ? -1 : indexOf(body, separator, contentStart + HEADER_END.length);
+            if (end < 0) {
+                respond(exchange, 400, "{\"Message\":\"malformed multipart body\",\"Code\":1,\"Type\":\"error\"}");
+                return;
+            }
+            contentStart += HEADER_END.length;
+            String header = new String(body, headers, contentStart - headers, StandardCharsets.ISO_8859_1);
+            String path = fileName(header);
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                directories.add(path.substring(0, slash));
+            }
+            if (header.contains("application/x-directory")) {
+                directories.add(path);
+            } else {
+                byte[] data = Arrays.copyOfRange(body, contentStart, end);
+                String cid = store(data);
+                added.put(path, new DagPb.Link(CidCodec.cidBytes(cid), path, data.length));
+                response.append(addedLine(path, cid, data.length));
+            }
+            start = end;
+        }
+        for (String directory : directories) {
+            List<DagPb.Link> links = new ArrayList<>();
+            long size = 0;
+            for (DagPb.Link child : added.values()) {
+                if (parent(child.name).equals(directory)) {
+                    links.add(new DagPb.Link(child.hash, child.name.substring(child.name.lastIndexOf('/') + 1),
+                            child.tsize));
+                    size += child.tsize;
+                }
+            }
+            links.sort(Comparator.comparing(link -> link.name));
+            byte[] node = DagPb.encodeNode(links, UNIXFS_DIRECTORY);
+            String cid = CidCodec.cidV0(node);
+            added.put(directory, new DagPb.Link(CidCodec.cidBytes(cid), directory, node.length + size));
+            response.append(addedLine(directory, cid, node.length + size));
+        }
+        respond(exchange, 200, response.toString());
+    }
+
+    private static String fileName(String header) {
+        int start = header.indexOf("filename=\"");
+        if (start < 0) {
+            return "file";
+        }
+        start += 10;
+        return URLDecoder.decode(header.substring(start, header.indexOf('"', start)), StandardCharsets.UTF_8);
+    }
+
+    private static int depth(String path) {
+        return path.isEmpty() ? 0 : path.split("/").length;
+    }
+
+    private static String parent(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    private static String addedLine(String name, String cid, long size) {
+        return "{\"Name\":\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\",\"Hash\":\"" + cid
+                + "\",\"Size\":\"" + size + "\"}\n";
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            int matched = 0;
+            while (matched < pattern.length && data[i + matched] == pattern[matched]) {
+                matched++;
+            }
+            if (matched == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void skipPartHeaders(InputStream body) throws IOException {
+        int matched = 0;
+        int next;
+        while (matched < 4 && (next = body.read()) != -1) {
+            matched = next == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : (next == '\r' ? 1 : 0);
+        }
+    }
+
+    private void handleCat(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        byte[] data = blobs.get(query.get("arg"));
+        if (data == null) {
+            respond(exchange, 500, "{\"Message\":\"block not found\",\"Code\":0,\"Type\":\"error\"}");
+            return;
+        }
+        int offset = (int) Math.min(data.length, Long.parseLong(query.getOrDefault("offset", "0")));
+        int length = data.length - offset;
+        if (query.containsKey("length")) {
+            length = (int) Math.min(length, Long.parseLong(query.get("length")));
+        }
+        exchange.sendResponseHeaders(200, length == 0 ? -1 : length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            long start = System.nanoTime();
+            int written = 0;
+            while (written < length) {
+                int slice = Math.min(SLICE_SIZE, length - written);
+                outputStream.write(data, offset + written, slice);
+                written += slice;
+                throttle(start, written);
+            }
+        }
+    }
+
+    private void handleRefsLocal(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        StringBuilder refs = new StringBuilder();
+        for (String cid : blobs.keySet()) {
+            refs.append("{\"Ref\":\"").append(cid).append("\",\"Err\":\"\"}\n");
+        }
+        respond(exchange, 200, refs.toString());
+    }
+
+    private void handleId(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        respond(exchange, 200, "{\"ID\":\"" + PEER_ID + "\",\"PublicKey\":\"\",\"Addresses\":[],"
+                + "\"AgentVersion\":\"kubo/0.0.0-fake\",\"Protocols\":[]}");
+    }
+
+    private void handleBlockStat(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        String cid = query.get("arg");
+        byte[] data = blobs.get(cid);
+        if (data == null) {
+            respond(exchange, 500, "{\"Message\":\"block not found\",\"Code\":0,\"Type\":\"error\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"Key\":\"" + cid + "\",\"Size\":" + Math.min(data.length, 262144) + "}");
+    }
+
+    private void handleBlockGet(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        byte[] block = blocks.get(query.get("arg"));
+        if (block == null) {
+            respond(exchange, 500, "{\"Message\":\"block not found\",\"Code\":0,\"Type\":\"error\"}");
+            return;
+        }
+        exchange.sendResponseHeaders(200, block.length == 0 ? -1 : block.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(block);
+        }
+    }
+
+    private void handleFilesStat(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        String path = query.getOrDefault("arg", "");
+        String cid = path.startsWith("/ipfs/") ? path.substring(6) : path;
+        byte[] data = blobs.get(cid);
+        if (data == null) {
+            respond(exchange, 500, "{\"Message\":\"block not found\",\"Code\":0,\"Type\":\"error\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"Hash\":\"" + cid + "\",\"Size\":" + data.length + ",\"CumulativeSize\":"
+                + data.length + ",\"Blocks\":0,\"Type\":\"file\"}");
+    }
+
+    private void handleDagPut(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int boundaryStart = contentType != null ? contentType.indexOf("boundary=") : -1;
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        exchange.getRequestBody().transferTo(received);
+        byte[] body = received.toByteArray();
+        int start = indexOf(body, HEADER_END, 0);
+        int end = boundaryStart < 0 || start < 0 ? -1 : indexOf(body,
+                ("\r\n--" + contentType.substring(boundaryStart + 9)).getBytes(StandardCharsets.US_ASCII), start);
+        if (end < 0) {
+            respond(exchange, 400, "{\"Message\":\"malformed multipart body\",\"Code\":1,\"Type\":\"error\"}");
+            return;
+        }
+        byte[] node = Arrays.copyOfRange(body, start + HEADER_END.length, end);
+        String cid = CidCodec.cidV0(node);
+        blocks.put(cid, node);
+        respond(exchange, 200, "{\"Cid\":{\"/\":\"" + cid + "\"}}\n");
+    }
+
+    private void handlePinLs(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        String cid = query.get("arg");
+        if (!blobs.containsKey(cid)) {
+            respond(exchange, 500, "{\"Message\":\"path '" + cid + "' is not pinned\",\"Code\":0,\"Type\":\"error\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"Keys\":{\"" + cid + "\":{\"Type\":\"recursive\"}}}");
+    }
+
+    private void handlePinRm(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        String cid = query.get("arg");
+        unpinned.add(cid);
+        respond(exchange, 200, "{\"Pins\":[\"" + cid + "\"]}");
+    }
+
+    private void handleVersion(HttpExchange exchange, Map<String, String> query) throws IOException {
+        drain(exchange.getRequestBody());
+        respond(exchange, 200, "{\"Version\":\"0.0.0-fake\",\"Commit\":\"\",\"Repo\":\"15\"}");
+    }
+
+    private void throttle(long startNanos, long bytes) throws InterruptedIOException {
+        long bandwidth = bandwidthBytesPerSecond;
+        if (bandwidth <= 0) {
+            return;
+        }
+        long dueNanos = startNanos + bytes * 1_000_000_000L / bandwidth;
+        long waitMillis = (dueNanos - System.nanoTime()) / 1_000_000;
+        sleep(waitMillis);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Fake node stopped");
+        }
+    }
+
+    static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
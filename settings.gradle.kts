@@ -23,4 +23,7 @@ dependencyResolutionManagement {
 }
 
 rootProject.name = "zerobyte"
-include(":app")
\ No newline at end of file
+include(":app")
+include(":benchmark")
+include(":core")
+include(":cli")